@@ -1,5 +1,8 @@
 package com.github.papahigh.phonetic.benchmarks;
 
+import com.github.papahigh.phonetic.generated.RussianMorphologyDictionary;
+import com.github.papahigh.phonetic.generated.RussianOrthographicDictionary;
+import com.github.papahigh.phonetic.generated.RussianSurnamesDictionary;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -27,6 +30,13 @@ public class Config {
             "BMRussian"
     );
 
+    // same encoders as RussianAV[8], Russian1V[8] and Russian1V[4] but with compiled consonant rules
+    private static final List<String> COMPILED_RULES_ENCODERS = Arrays.asList(
+            "RussianAVC[8]",
+            "Russian1VC[8]",
+            "Russian1VC[4]"
+    );
+
     private static final List<String> ENCODERS_WITH_FIXED_LENGTH = Arrays.asList(
             "BMCyrillic",
             "BMRussian",
@@ -50,6 +60,28 @@ public class Config {
         return PREDEFINED_ENCODERS.stream();
     }
 
+    public static List<String> getGeneratedDictionary(String dictionary) {
+        List<String> words;
+        switch (dictionary) {
+            case "russian_orthography":
+                words = RussianOrthographicDictionary.DICT;
+                break;
+            case "russian_surnames":
+                words = RussianSurnamesDictionary.DICT;
+                break;
+            case "russian_morphology":
+                words = RussianMorphologyDictionary.DICT;
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown dictionary name: %s", dictionary));
+        }
+        return words;
+    }
+
+    public static Stream<String> getThroughputEncodersStream() {
+        return Stream.concat(PREDEFINED_ENCODERS.stream(), COMPILED_RULES_ENCODERS.stream());
+    }
+
     public static Stream<String> getDictionariesStream() {
         return DICTIONARIES.stream().map(Pair::getLeft);
     }
@@ -98,7 +98,7 @@ class DistributionFilesMaker {
                 encoderWithoutMaxLength
                         .stream()
                         .map(encoderName -> supplyAsync(() -> new ImmutableTriple<>(encoderName, 0,
-                                statsCalculator(dictionary, createEncoder(encoderName)).calculate())))
+                                statsCalculator(dictionary, () -> createEncoder(encoderName)).calculate())))
                         .toArray((IntFunction<CompletableFuture<?>[]>) CompletableFuture[]::new);
 
         CompletableFuture<?>[] variableLengthEncoderResults =
@@ -106,7 +106,7 @@ class DistributionFilesMaker {
                         .stream()
                         .flatMap(encoderName -> IntStream.range(4, 15).mapToObj(keyLength ->
                                 supplyAsync(() -> new ImmutableTriple<>(encoderName, keyLength,
-                                        statsCalculator(dictionary, createEncoder(encoderName, keyLength)).calculate()))))
+                                        statsCalculator(dictionary, () -> createEncoder(encoderName, keyLength)).calculate()))))
                         .toArray((IntFunction<CompletableFuture<?>[]>) CompletableFuture[]::new);
 
         Map<String, Map<Integer, StatsCalculator.DictionaryStats>> aggregatedResult = new HashMap<>();
@@ -1,35 +1,34 @@
 package com.github.papahigh.phonetic.benchmarks.distribution;
 
-import org.apache.commons.codec.EncoderException;
+import com.github.papahigh.phonetic.BulkEncoder;
 import org.apache.commons.codec.StringEncoder;
-import org.apache.commons.collections4.MultiMapUtils;
-import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.math3.stat.Frequency;
 import org.apache.commons.math3.stat.descriptive.AggregateSummaryStatistics;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.commons.text.similarity.JaroWinklerDistance;
 import org.apache.commons.text.similarity.LevenshteinDistance;
 
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 
 class StatsCalculator {
 
-    private final StringEncoder encoder;
+    private final Supplier<? extends StringEncoder> encoderSupplier;
     private final List<String> dictionary;
 
     private boolean calcMaxBucketStats;
 
-    private StatsCalculator(List<String> dictionary, StringEncoder encoder) {
+    private StatsCalculator(List<String> dictionary, Supplier<? extends StringEncoder> encoderSupplier) {
         this.dictionary = dictionary;
-        this.encoder = encoder;
+        this.encoderSupplier = encoderSupplier;
     }
 
-    static StatsCalculator statsCalculator(List<String> dictionary, StringEncoder encoder) {
-        return new StatsCalculator(dictionary, encoder);
+    static StatsCalculator statsCalculator(List<String> dictionary, Supplier<? extends StringEncoder> encoderSupplier) {
+        return new StatsCalculator(dictionary, encoderSupplier);
     }
 
     StatsCalculator withMaxBucketStats() {
@@ -39,21 +38,14 @@ class StatsCalculator {
 
     DictionaryStats calculate() {
 
-        MultiValuedMap<String, String> wordsByKey = MultiMapUtils.newSetValuedHashMap();
-        for (String word : dictionary) {
-            try {
-                wordsByKey.put(encoder.encode(word), word);
-            } catch (EncoderException e) {
-                throw new RuntimeException(e);
-            }
-        }
+        Map<String, Set<String>> wordsByKey = new BulkEncoder(encoderSupplier).index(dictionary);
 
-        DictionaryStats results = new DictionaryStats(dictionary.size(), wordsByKey.keySet().size());
-        wordsByKey.keySet().forEach(s -> results.addBucketStats(s, wordsByKey.get(s).size()));
+        DictionaryStats results = new DictionaryStats(dictionary.size(), wordsByKey.size());
+        wordsByKey.forEach((code, words) -> results.addBucketStats(code, words.size()));
 
         if (calcMaxBucketStats) {
 
-            Map.Entry<String, Collection<String>> maxBucket = wordsByKey.asMap()
+            Map.Entry<String, Set<String>> maxBucket = wordsByKey
                     .entrySet()
                     .stream()
                     .max(Comparator.comparingInt(o -> o.getValue().size()))
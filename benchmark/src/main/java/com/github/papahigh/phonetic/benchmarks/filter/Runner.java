@@ -0,0 +1,40 @@
+package com.github.papahigh.phonetic.benchmarks.filter;
+
+import com.github.papahigh.phonetic.benchmarks.Config;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+
+public class Runner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+
+        Path outputDirectory = Config.resolvePath("token_filter");
+        Options opt = new OptionsBuilder()
+                .include(String.format(".*%s.*", TokenFilterBenchmark.class.getSimpleName()))
+                .threads(1)
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+
+                // allocations per token
+                .addProfiler(GCProfiler.class)
+
+                .forks(1)
+                .output(outputDirectory.resolve("token_filter.log").toFile().getCanonicalPath())
+                .result(outputDirectory.resolve("token_filter.csv").toFile().getCanonicalPath())
+                .resultFormat(ResultFormatType.CSV)
+                .build();
+
+        new org.openjdk.jmh.runner.Runner(opt).run();
+    }
+}
@@ -0,0 +1,293 @@
+package com.github.papahigh.phonetic.benchmarks.filter;
+
+import com.github.papahigh.phonetic.benchmarks.Config;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.PhoneticRegistry;
+import org.elasticsearch.index.analysis.RussianPhoneticTokenFilterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Measures the Elasticsearch token filter path end to end: whitespace tokenizer followed by the filter
+ * created with RussianPhoneticTokenFilterFactory, reused across texts the same way Lucene analyzers are.
+ * Every operation is a single token, so throughput is reported in tokens per time unit
+ * and gc.alloc.rate.norm (with GC profiler) in bytes per token.
+ * <p>
+ * Short documents are analyzed with a new stream per document (like analyzers which don't reuse their components)
+ * to measure the cost of the per-stream state, e.g. stemmers drawn from the pool versus a new stemmer per stream.
+ * Stemming filter with and without the stem cache is measured separately from the rest of the filter settings.
+ */
+public class TokenFilterBenchmark {
+
+    static final int TOKENS_PER_TEXT = 1000;
+    static final int TOKENS_PER_SHORT_TEXT = 8;
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS_PER_TEXT)
+    public int tokenizeOnly(final TextState state) throws IOException {
+        return consume(state.analyzer, state.nextText());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS_PER_TEXT)
+    public int tokenizeAndFilter(final FilterState state) throws IOException {
+        return consume(state.analyzer, state.nextText());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS_PER_TEXT)
+    public int tokenizeAndFilterWithStemCache(final StemCacheState state) throws IOException {
+        return consume(state.analyzer, state.nextText());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS_PER_SHORT_TEXT)
+    public int createAndFilterShortText(final ShortTextState state) throws IOException {
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(state.nextText()));
+        return consume(state.factory.create(tokenizer));
+    }
+
+    private static int consume(Analyzer analyzer, String text) throws IOException {
+        return consume(analyzer.tokenStream("field", text));
+    }
+
+    private static int consume(TokenStream stream) throws IOException {
+        int length = 0;
+        try (TokenStream tokenStream = stream) {
+            CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                length += termAtt.length();
+            }
+            tokenStream.end();
+        }
+        return length;
+    }
+
+    @State(Scope.Thread)
+    public static class TextState {
+
+        @Param({"russian_surnames", "russian_orthography", "russian_morphology"})
+        String dictionaryName;
+
+        Analyzer analyzer;
+
+        private String[] texts;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            analyzer = new Analyzer() {
+                @Override
+                protected TokenStreamComponents createComponents(String fieldName) {
+                    return new TokenStreamComponents(new WhitespaceTokenizer());
+                }
+            };
+
+            // texts are sampled with repetitions, so that repeated terms hit the cache like in real fields
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            Random random = new Random(42);
+            texts = new String[64];
+            for (int i = 0; i < texts.length; i++) {
+                StringBuilder text = new StringBuilder();
+                for (int j = 0; j < tokensPerText(); j++) {
+                    text.append(dictionary.get(random.nextInt(dictionary.size()))).append(' ');
+                }
+                texts[i] = text.toString();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            analyzer.close();
+        }
+
+        int tokensPerText() {
+            return TOKENS_PER_TEXT;
+        }
+
+        String nextText() {
+            if (++cursor == texts.length) {
+                cursor = 0;
+            }
+            return texts[cursor];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FilterState extends TextState {
+
+        @Param({"encode_first", "encode_all"})
+        String vowels;
+
+        @Param({"8"})
+        int maxCodeLength;
+
+        @Param({"false", "true"})
+        boolean enableStemmer;
+
+        @Param({"true", "false"})
+        boolean replace;
+
+        @Param({"0", "65536"})
+        int cacheSize;
+
+        @Param({"text", "binary"})
+        String output;
+
+        @Param({"0", "3"})
+        int maxAlternatives;
+
+        private Path home;
+
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            super.setUp();
+            home = Files.createTempDirectory("token-filter-benchmark");
+
+            Settings settings = Settings.builder()
+                    .put("vowels", vowels)
+                    .put("max_code_len", maxCodeLength)
+                    .put("enable_stemmer", enableStemmer)
+                    .put("replace", replace)
+                    .put("cache_size", cacheSize)
+                    .put("output", output)
+                    .put("max_alternatives", maxAlternatives)
+                    .build();
+            RussianPhoneticTokenFilterFactory factory = new RussianPhoneticTokenFilterFactory(
+                    newIndexSettings(), newEnvironment(home), "russian_phonetic", settings);
+
+            analyzer.close();
+            analyzer = new Analyzer() {
+                @Override
+                protected TokenStreamComponents createComponents(String fieldName) {
+                    Tokenizer tokenizer = new WhitespaceTokenizer();
+                    return new TokenStreamComponents(tokenizer, factory.create(tokenizer));
+                }
+            };
+        }
+
+        @Override
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            super.tearDown();
+            Files.deleteIfExists(home);
+        }
+
+        public static IndexSettings newIndexSettings() {
+            Settings settings = Settings.builder()
+                    .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                    .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                    .build();
+            return new IndexSettings(IndexMetaData.builder("benchmark").settings(settings).build(), Settings.EMPTY);
+        }
+
+        public static Environment newEnvironment(Path home) {
+            return new Environment(Settings.builder().put(Environment.PATH_HOME_SETTING.getKey(), home).build(), null);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class StemCacheState extends TextState {
+
+        @Param({"0", "65536"})
+        int stemCacheSize;
+
+        private Path home;
+
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            super.setUp();
+            home = Files.createTempDirectory("token-filter-benchmark");
+
+            // phonetic codes are not cached, so that every token is either stemmed or looked up in the stem cache
+            Settings settings = Settings.builder()
+                    .put("vowels", "encode_all")
+                    .put("enable_stemmer", true)
+                    .put("stem_cache_size", stemCacheSize)
+                    .build();
+            RussianPhoneticTokenFilterFactory factory = new RussianPhoneticTokenFilterFactory(
+                    FilterState.newIndexSettings(), FilterState.newEnvironment(home), "russian_phonetic", settings);
+
+            analyzer.close();
+            analyzer = new Analyzer() {
+                @Override
+                protected TokenStreamComponents createComponents(String fieldName) {
+                    Tokenizer tokenizer = new WhitespaceTokenizer();
+                    return new TokenStreamComponents(tokenizer, factory.create(tokenizer));
+                }
+            };
+        }
+
+        @Override
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            super.tearDown();
+            Files.deleteIfExists(home);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ShortTextState extends TextState {
+
+        @Param({"0", "64"})
+        int stemmerPoolCapacity;
+
+        RussianPhoneticTokenFilterFactory factory;
+
+        private Path home;
+
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            super.setUp();
+            home = Files.createTempDirectory("token-filter-benchmark");
+
+            // zero capacity pool creates a new stemmer for every stream
+            Settings settings = Settings.builder()
+                    .put("enable_stemmer", true)
+                    .build();
+            factory = new RussianPhoneticTokenFilterFactory(FilterState.newIndexSettings(),
+                    FilterState.newEnvironment(home), "russian_phonetic", settings, new PhoneticRegistry(stemmerPoolCapacity));
+        }
+
+        @Override
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            super.tearDown();
+            Files.deleteIfExists(home);
+        }
+
+        @Override
+        int tokensPerText() {
+            return TOKENS_PER_SHORT_TEXT;
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package com.github.papahigh.phonetic.benchmarks.fuzziness;
 
+import com.github.papahigh.phonetic.BulkEncoder;
 import com.github.papahigh.phonetic.benchmarks.Config;
 import com.github.papahigh.phonetic.support.EncodersFactory;
-import org.apache.commons.codec.EncoderException;
-import org.apache.commons.codec.StringEncoder;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.math3.stat.descriptive.AggregateSummaryStatistics;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.commons.text.similarity.LevenshteinDistance;
-import org.jooq.lambda.Unchecked;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -20,6 +18,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 
 class HistogramFileMaker {
@@ -60,19 +59,23 @@ class HistogramFileMaker {
     private Map<String, SummaryStatistics> calculateStats(List<String> dictionary) {
         Map<String, SummaryStatistics> stats = new HashMap<>();
 
-        encoders.forEach(name ->
-                dictionary.stream()
-                        .skip(1)
-                        .forEach(Unchecked.consumer(test -> doTest(
-                                // stats
-                                stats.computeIfAbsent(name, (n) -> new AggregateSummaryStatistics().createContributingStatistics()),
-                                // encoder
-                                EncodersFactory.createEncoder(name),
-                                // test string
-                                test
-                                )
-                        ))
-        );
+        List<String[]> tests = dictionary.stream()
+                .skip(1)
+                .map(line -> line.split(";"))
+                .collect(Collectors.toList());
+        List<String> firstWords = tests.stream().map(test -> test[0]).collect(Collectors.toList());
+        List<String> secondWords = tests.stream().map(test -> test[1]).collect(Collectors.toList());
+
+        encoders.forEach(name -> {
+            BulkEncoder encoder = new BulkEncoder(() -> EncodersFactory.createEncoder(name));
+            String[] firstCodes = encoder.encode(firstWords);
+            String[] secondCodes = encoder.encode(secondWords);
+            SummaryStatistics encoderStats =
+                    stats.computeIfAbsent(name, (n) -> new AggregateSummaryStatistics().createContributingStatistics());
+            for (int i = 0; i < tests.size(); i++) {
+                doTest(encoderStats, firstCodes[i], secondCodes[i], tests.get(i));
+            }
+        });
 
         dictionary.stream()
                 .skip(1)
@@ -92,10 +95,9 @@ class HistogramFileMaker {
         fileContent.add("Encoder\tMatchPercent\tSum");
     }
 
-    private static Double getScoreForLine(StringEncoder encoder, String line) throws EncoderException {
-        String[] array = line.split(";");
-        if (encoder.encode(array[0]).equals(encoder.encode(array[1]))) {
-            return Double.parseDouble(array[2]);
+    private static Double getScoreForTest(String firstCode, String secondCode, String[] test) {
+        if (firstCode.equals(secondCode)) {
+            return Double.parseDouble(test[2]);
         } else {
             return 0.0;
         }
@@ -117,8 +119,8 @@ class HistogramFileMaker {
         }
     }
 
-    private static void doTest(SummaryStatistics stats, StringEncoder encoder, String line) throws EncoderException {
-        double score = getScoreForLine(encoder, line);
+    private static void doTest(SummaryStatistics stats, String firstCode, String secondCode, String[] test) {
+        double score = getScoreForTest(firstCode, secondCode, test);
         if (score > 0) {
             stats.addValue(score);
         }
@@ -1,6 +1,9 @@
 package com.github.papahigh.phonetic.benchmarks.gc;
 
 import com.github.papahigh.phonetic.benchmarks.Config;
+import com.github.papahigh.phonetic.benchmarks.throughput.ExchangeReuseBenchmark;
+import com.github.papahigh.phonetic.benchmarks.throughput.LowerCaseEncodingBenchmark;
+import com.github.papahigh.phonetic.benchmarks.throughput.StreamEncodingBenchmark;
 import com.github.papahigh.phonetic.benchmarks.throughput.ThroughputBenchmark;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.profile.GCProfiler;
@@ -21,6 +24,9 @@ public class Runner {
         Path outputDirectory = Config.resolvePath("gc");
         Options opt = new OptionsBuilder()
                 .include(String.format(".*%s.*", ThroughputBenchmark.class.getSimpleName()))
+                .include(String.format(".*%s.*", ExchangeReuseBenchmark.class.getSimpleName()))
+                .include(String.format(".*%s.*", LowerCaseEncodingBenchmark.class.getSimpleName()))
+                .include(String.format(".*%s.*", StreamEncodingBenchmark.class.getSimpleName()))
                 .param("dictionaryName", Config.getDictionariesStream().toArray(String[]::new))
                 .param("encoderName", Config.getEncodersStream().toArray(String[]::new))
                 .threads(1)
@@ -0,0 +1,111 @@
+package com.github.papahigh.phonetic.benchmarks.scaling;
+
+import com.github.papahigh.phonetic.benchmarks.Config;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.StackProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+
+/**
+ * Runs ScalingBenchmark with 1, 2, 4, ... threads up to the number of available processors
+ * (or with the thread counts supplied as arguments) and writes scaling.csv with the throughput of every run
+ * along with the per thread throughput and scaling efficiency, i.e. throughput relative to the single thread
+ * throughput multiplied by the number of threads. Efficiency dropping well below 1 marks the point where threads
+ * contend for a shared resource (locks, atomics, shared cache lines) or run out of memory bandwidth.
+ * <p>
+ * JMH output of every thread count (scaling_N.log) includes thread states sampled by the stack profiler,
+ * so that the time spent BLOCKED or WAITING tells lock contention apart from false sharing and other
+ * hardware effects which keep threads RUNNABLE (run the benchmark with -prof perfnorm on Linux to look into those).
+ */
+public class Runner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+
+        Path outputDirectory = Config.resolvePath("scaling");
+
+        // benchmark with its parameters -> thread count -> result
+        Map<String, Map<Integer, RunResult>> results = new LinkedHashMap<>();
+        for (int threads : threadCounts(args)) {
+            Options opt = new OptionsBuilder()
+                    .include(String.format(".*%s.*", ScalingBenchmark.class.getSimpleName()))
+                    .threads(threads)
+                    .warmupIterations(5)
+                    .measurementIterations(10)
+                    .mode(Mode.Throughput)
+                    .timeUnit(TimeUnit.SECONDS)
+
+                    // thread states and hot frames
+                    .addProfiler(StackProfiler.class)
+
+                    .forks(1)
+                    .output(outputDirectory.resolve(String.format(Locale.ROOT, "scaling_%d.log", threads)).toFile().getCanonicalPath())
+                    .build();
+
+            for (RunResult result : new org.openjdk.jmh.runner.Runner(opt).run()) {
+                results.computeIfAbsent(label(result.getParams()), key -> new TreeMap<>()).put(threads, result);
+            }
+        }
+
+        Path csv = outputDirectory.resolve("scaling.csv");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+            writer.println("\"Benchmark\",\"Threads\",\"Score\",\"Score Per Thread\",\"Efficiency\",\"Unit\"");
+            for (Map.Entry<String, Map<Integer, RunResult>> entry : results.entrySet()) {
+                Map<Integer, RunResult> byThreads = entry.getValue();
+                RunResult single = byThreads.get(1);
+                for (Map.Entry<Integer, RunResult> run : byThreads.entrySet()) {
+                    int threads = run.getKey();
+                    double score = run.getValue().getPrimaryResult().getScore();
+                    double efficiency = single != null
+                            ? score / (threads * single.getPrimaryResult().getScore())
+                            : Double.NaN;
+                    writer.println(String.format(Locale.ROOT, "\"%s\",%d,%.3f,%.3f,%.3f,\"%s\"", entry.getKey(), threads,
+                            score, score / threads, efficiency, run.getValue().getPrimaryResult().getScoreUnit()));
+                }
+            }
+        }
+    }
+
+    private static List<Integer> threadCounts(String[] args) {
+        List<Integer> threadCounts = new ArrayList<>();
+        if (args.length > 0) {
+            for (String arg : args) {
+                threadCounts.add(Integer.parseInt(arg));
+            }
+            return threadCounts;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads < processors; threads <<= 1) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(processors);
+        return threadCounts;
+    }
+
+    private static String label(BenchmarkParams params) {
+        String benchmark = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1);
+        if (params.getParamsKeys().isEmpty()) {
+            return benchmark;
+        }
+        return params.getParamsKeys().stream()
+                .map(key -> key + "=" + params.getParam(key))
+                .collect(Collectors.joining(", ", benchmark + " (", ")"));
+    }
+}
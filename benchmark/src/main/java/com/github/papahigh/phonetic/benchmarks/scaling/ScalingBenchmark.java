@@ -0,0 +1,264 @@
+package com.github.papahigh.phonetic.benchmarks.scaling;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.benchmarks.Config;
+import com.github.papahigh.phonetic.benchmarks.filter.TokenFilterBenchmark;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.analysis.PhoneticRegistry;
+import org.elasticsearch.index.analysis.RussianPhoneticTokenFilterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Measures how the encoder and the token filter (with and without the code cache) scale with the number of threads.
+ * Everything shared by the threads of an Elasticsearch node (encoder, filter factory with its cache
+ * and stemmer pool) is Scope.Benchmark state, while the per-stream and per-request state
+ * (encoding context, analyzer, words) is Scope.Thread state, so that contention shows up the same way as under
+ * concurrent indexing. Every thread walks its own copy of the words from a random start to avoid a shared cursor.
+ * <p>
+ * Benchmarks are meant to be run by the scaling Runner which sweeps thread counts and reports scaling efficiency.
+ */
+public class ScalingBenchmark {
+
+    static final int TOKENS_PER_TEXT = 1000;
+    static final int TOKENS_PER_SHORT_TEXT = 8;
+
+    @Benchmark
+    public String encodeWithSharedEncoder(final SharedEncoderState encoderState, final WordsState wordsState) {
+        return encoderState.encoder.encode(wordsState.nextWord());
+    }
+
+    @Benchmark
+    public int encodeWithThreadExchange(final SharedEncoderState encoderState, final ExchangeState state) {
+        char[] word = state.words.nextChars();
+        return encoderState.encoder.encode(state.inputBuffer.reset(word, word.length), state.exchange, state.target, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS_PER_TEXT)
+    public int tokenizeAndFilter(final AnalyzerState state) throws IOException {
+        return consume(state.analyzer.tokenStream("field", state.nextText()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS_PER_SHORT_TEXT)
+    public int createAndFilterShortText(final SharedFilterState filterState, final ShortTextState state) throws IOException {
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(state.nextText()));
+        return consume(filterState.factory.create(tokenizer));
+    }
+
+    private static int consume(TokenStream stream) throws IOException {
+        int length = 0;
+        try (TokenStream tokenStream = stream) {
+            CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                length += termAtt.length();
+            }
+            tokenStream.end();
+        }
+        return length;
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedEncoderState {
+
+        @Param({"ENCODE_ALL"})
+        VowelsMode vowelsMode;
+
+        @Param({"8"})
+        int maxCodeLength;
+
+        PhoneticEncoder encoder;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = russianPhonetic(vowelsMode, maxCodeLength);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WordsState {
+
+        @Param({"russian_surnames"})
+        String dictionaryName;
+
+        private String[] words;
+        private char[][] chars;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            words = dictionary.toArray(new String[0]);
+            chars = new char[words.length][];
+            for (int i = 0; i < words.length; i++) {
+                chars[i] = words[i].toLowerCase(Locale.ROOT).toCharArray();
+            }
+            cursor = ThreadLocalRandom.current().nextInt(words.length);
+        }
+
+        String nextWord() {
+            if (++cursor == words.length) {
+                cursor = 0;
+            }
+            return words[cursor];
+        }
+
+        char[] nextChars() {
+            if (++cursor == chars.length) {
+                cursor = 0;
+            }
+            return chars[cursor];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ExchangeState {
+
+        PhonemeExchange exchange;
+        LimitedLengthInputBuffer inputBuffer;
+        char[] target;
+        WordsState words;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedEncoderState encoderState, WordsState wordsState) {
+            exchange = encoderState.encoder.newExchange();
+            inputBuffer = new LimitedLengthInputBuffer(new char[0], 0, encoderState.maxCodeLength);
+            target = new char[encoderState.maxCodeLength];
+            words = wordsState;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedFilterState {
+
+        @Param({"false", "true"})
+        boolean enableStemmer;
+
+        @Param({"0", "65536"})
+        int cacheSize;
+
+        @Param({"lru", "fifo"})
+        String cacheEviction;
+
+        RussianPhoneticTokenFilterFactory factory;
+
+        private Path home;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            home = Files.createTempDirectory("scaling-benchmark");
+
+            // the factory along with its caches and stemmer pool is shared by all the threads like on a node
+            Settings settings = Settings.builder()
+                    .put("vowels", "encode_all")
+                    .put("enable_stemmer", enableStemmer)
+                    .put("cache_size", cacheSize)
+                    .put("cache_eviction", cacheEviction)
+                    .build();
+            factory = new RussianPhoneticTokenFilterFactory(TokenFilterBenchmark.FilterState.newIndexSettings(),
+                    TokenFilterBenchmark.FilterState.newEnvironment(home), "russian_phonetic", settings,
+                    new PhoneticRegistry(Settings.EMPTY));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(home);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TextState {
+
+        @Param({"russian_surnames"})
+        String textDictionaryName;
+
+        private String[] texts;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            // texts are sampled with repetitions, so that repeated terms hit the cache like in real fields
+            List<String> dictionary = Config.getGeneratedDictionary(textDictionaryName);
+            Random random = new Random(ThreadLocalRandom.current().nextLong());
+            texts = new String[64];
+            for (int i = 0; i < texts.length; i++) {
+                StringBuilder text = new StringBuilder();
+                for (int j = 0; j < tokensPerText(); j++) {
+                    text.append(dictionary.get(random.nextInt(dictionary.size()))).append(' ');
+                }
+                texts[i] = text.toString();
+            }
+        }
+
+        int tokensPerText() {
+            return TOKENS_PER_TEXT;
+        }
+
+        String nextText() {
+            if (++cursor == texts.length) {
+                cursor = 0;
+            }
+            return texts[cursor];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AnalyzerState extends TextState {
+
+        Analyzer analyzer;
+
+        @Setup(Level.Trial)
+        public void setUpAnalyzer(SharedFilterState filterState) {
+            analyzer = new Analyzer() {
+                @Override
+                protected TokenStreamComponents createComponents(String fieldName) {
+                    Tokenizer tokenizer = new WhitespaceTokenizer();
+                    return new TokenStreamComponents(tokenizer, filterState.factory.create(tokenizer));
+                }
+            };
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            analyzer.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ShortTextState extends TextState {
+
+        @Override
+        int tokensPerText() {
+            return TOKENS_PER_SHORT_TEXT;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.benchmarks.Config;
+import com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Measures classification of chars alone: the table lookup of RussianAlphaBits
+ * against the former lookup in an array of Russian letters guarded by a range check.
+ * Every operation is a single char of the dictionary words.
+ */
+public class AlphaBitsBenchmark {
+
+    static final int CHARS = 4096;
+
+    @Benchmark
+    @OperationsPerInvocation(CHARS)
+    public int tableLookup(final BenchmarkState state) {
+        char[] chars = state.chars;
+        int sum = 0;
+        for (int i = 0; i < CHARS; i++) {
+            sum += RussianAlphaBits.bitsForChar(chars[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHARS)
+    public int rangeCheckedLookup(final BenchmarkState state) {
+        char[] chars = state.chars;
+        int[] letters = state.letters;
+        int sum = 0;
+        for (int i = 0; i < CHARS; i++) {
+            int bits = 0x0;
+            int index = chars[i] - 'а';
+            if (index >= 0 && index < letters.length) {
+                bits = letters[index];
+            }
+            sum += bits;
+        }
+        return sum;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({"russian_orthography", "russian_surnames"})
+        String dictionaryName;
+
+        char[] chars;
+        int[] letters;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            letters = new int['ё' - 'а' + 1];
+            for (int i = 0; i < letters.length; i++) {
+                letters[i] = RussianAlphaBits.bitsForChar((char) ('а' + i));
+            }
+
+            // words are joined with spaces, so that the input has a share of the chars without bits,
+            // and lowercased as input buffers do, otherwise capitalized surnames would miss the table
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; text.length() < CHARS; i++) {
+                text.append(dictionary.get(i % dictionary.size())).append(' ');
+            }
+            chars = text.substring(0, CHARS).toLowerCase(Locale.ROOT).toCharArray();
+        }
+    }
+}
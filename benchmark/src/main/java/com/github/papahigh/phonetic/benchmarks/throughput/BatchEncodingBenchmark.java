@@ -0,0 +1,105 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.benchmarks.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Compares batch encoding of packed words against encoding the same words one by one.
+ * Scores are per batch, divide by batchSize to get the time per word.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchEncodingBenchmark {
+
+    @Benchmark
+    public int encodeBatch(final BenchmarkState state) {
+        int batch = state.nextBatch();
+        return state.encoder.encode(state.source, state.offsets[batch], state.lengths[batch], state.batchSize,
+                state.target, state.codeOffsets);
+    }
+
+    @Benchmark
+    public void encodeOneByOne(final BenchmarkState state, final Blackhole blackhole) {
+        int batch = state.nextBatch();
+        for (int i = 0; i < state.batchSize; i++) {
+            blackhole.consume(state.encoder.encode(state.words[batch][i]));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({"1", "64", "4096"})
+        int batchSize;
+
+        @Param({"ENCODE_ALL"})
+        VowelsMode vowelsMode;
+
+        @Param({"8"})
+        int maxCodeLength;
+
+        @Param({"russian_orthography"})
+        String dictionaryName;
+
+        PhoneticEncoder encoder;
+
+        char[] source;
+        int[][] offsets;
+        int[][] lengths;
+        String[][] words;
+
+        char[] target;
+        int[] codeOffsets;
+
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = russianPhonetic(vowelsMode, maxCodeLength);
+
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            int batches = Math.max(dictionary.size() / batchSize, 1);
+
+            StringBuilder packed = new StringBuilder();
+            offsets = new int[batches][batchSize];
+            lengths = new int[batches][batchSize];
+            words = new String[batches][batchSize];
+            for (int batch = 0; batch < batches; batch++) {
+                for (int i = 0; i < batchSize; i++) {
+                    String word = dictionary.get((batch * batchSize + i) % dictionary.size());
+                    words[batch][i] = word;
+                    offsets[batch][i] = packed.length();
+                    lengths[batch][i] = word.length();
+                    packed.append(word);
+                }
+            }
+            source = packed.toString().toCharArray();
+            target = new char[batchSize * maxCodeLength];
+            codeOffsets = new int[batchSize + 1];
+        }
+
+        int nextBatch() {
+            if (++cursor == offsets.length) {
+                cursor = 0;
+            }
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.benchmarks.Config;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+
+/**
+ * Runs the benchmarks comparing alternative encoding paths of the Russian encoder against each other.
+ * Benchmarks keep their own modes and parameters, a single benchmark can be picked by its name
+ * supplied as an argument (e.g. BatchEncodingBenchmark).
+ */
+public class ComparisonRunner {
+
+    private static final Class<?>[] BENCHMARKS = {
+            BatchEncodingBenchmark.class,
+            Utf8EncodingBenchmark.class,
+            AlphaBitsBenchmark.class,
+            LongInputBenchmark.class
+    };
+
+    public static void main(String[] args) throws RunnerException, IOException {
+
+        Path outputDirectory = Config.resolvePath("comparison");
+        OptionsBuilder builder = new OptionsBuilder();
+        for (Class<?> benchmark : BENCHMARKS) {
+            if (args.length == 0 || benchmark.getSimpleName().equals(args[0])) {
+                builder.include(String.format(".*%s.*", benchmark.getSimpleName()));
+            }
+        }
+        Options opt = builder
+                .threads(1)
+                .warmupIterations(5)
+                .measurementIterations(10)
+
+                .forks(1)
+                .output(outputDirectory.resolve("comparison.log").toFile().getCanonicalPath())
+                .result(outputDirectory.resolve("comparison.csv").toFile().getCanonicalPath())
+                .resultFormat(ResultFormatType.CSV)
+                .build();
+
+        new org.openjdk.jmh.runner.Runner(opt).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.benchmarks.Config;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Compares encoding with a fresh encoding context per word
+ * against the context reused across words (as PhoneticFilter does).
+ */
+public class ExchangeReuseBenchmark {
+
+    @Benchmark
+    public int encodeWithNewExchange(final BenchmarkState state) {
+        char[] word = state.nextWord();
+        return state.encoder.encode(new LimitedLengthInputBuffer(word, word.length, state.maxCodeLength)).getLength();
+    }
+
+    @Benchmark
+    public int encodeWithReusedExchange(final BenchmarkState state) {
+        char[] word = state.nextWord();
+        return state.encoder.encode(state.inputBuffer.reset(word, word.length), state.exchange).getLength();
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({"ENCODE_ALL", "ENCODE_FIRST", "IGNORE"})
+        VowelsMode vowelsMode;
+
+        @Param({"4", "8"})
+        int maxCodeLength;
+
+        @Param({"russian_orthography"})
+        String dictionaryName;
+
+        PhoneticEncoder encoder;
+        PhonemeExchange exchange;
+        LimitedLengthInputBuffer inputBuffer;
+
+        private char[][] words;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = russianPhonetic(vowelsMode, maxCodeLength);
+            exchange = encoder.newExchange();
+            inputBuffer = new LimitedLengthInputBuffer(new char[0], 0, maxCodeLength);
+
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            words = new char[dictionary.size()][];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = dictionary.get(i).toLowerCase(Locale.ROOT).toCharArray();
+            }
+        }
+
+        char[] nextWord() {
+            if (++cursor == words.length) {
+                cursor = 0;
+            }
+            return words[cursor];
+        }
+    }
+}
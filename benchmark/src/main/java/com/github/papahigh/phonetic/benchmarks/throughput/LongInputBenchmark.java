@@ -0,0 +1,89 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.benchmarks.Config;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Measures encoding of inputs of growing length made of words joined by punctuation with doubled letters,
+ * like compound names or lines of free text, so that a share of the input is skipped as non-letters or duplicates.
+ */
+public class LongInputBenchmark {
+
+    @Benchmark
+    public int encode(final BenchmarkState state) {
+        char[] input = state.nextInput();
+        return state.encoder.encode(state.inputBuffer.reset(input, input.length), state.exchange, state.target, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({"8", "32", "128", "512"})
+        int inputLength;
+
+        @Param({"ENCODE_ALL", "ENCODE_FIRST"})
+        VowelsMode vowelsMode;
+
+        @Param({"8"})
+        int maxCodeLength;
+
+        @Param({"russian_surnames"})
+        String dictionaryName;
+
+        PhoneticEncoder encoder;
+        PhonemeExchange exchange;
+        LimitedLengthInputBuffer inputBuffer;
+        char[] target;
+
+        private char[][] inputs;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = russianPhonetic(vowelsMode, maxCodeLength);
+            exchange = encoder.newExchange();
+            inputBuffer = new LimitedLengthInputBuffer(new char[0], 0, maxCodeLength);
+            target = new char[maxCodeLength];
+
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            Random random = new Random(42);
+            inputs = new char[1024][];
+            for (int i = 0; i < inputs.length; i++) {
+                StringBuilder input = new StringBuilder("№ ");
+                while (input.length() < inputLength) {
+                    for (char ch : dictionary.get(random.nextInt(dictionary.size())).toLowerCase(Locale.ROOT).toCharArray()) {
+                        input.append(ch);
+                        if (random.nextInt(4) == 0) {
+                            input.append(ch);
+                        }
+                    }
+                    input.append(" - ");
+                }
+                inputs[i] = input.substring(0, inputLength).toCharArray();
+            }
+        }
+
+        char[] nextInput() {
+            if (++cursor == inputs.length) {
+                cursor = 0;
+            }
+            return inputs[cursor];
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.benchmarks.Config;
+import com.github.papahigh.phonetic.buffer.Buffer;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Compares encoding of upper-case words lowercased with String.toLowerCase beforehand
+ * against the words lowercased on the fly by the encoder.
+ */
+public class LowerCaseEncodingBenchmark {
+
+    @Benchmark
+    public String encodeLowerCasedCopy(final BenchmarkState state) {
+        String word = state.nextWord();
+        char[] buffer = word.toLowerCase(Locale.ROOT).toCharArray();
+        Buffer outputBuffer = state.encoder.encode(new LimitedLengthInputBuffer(buffer, buffer.length, state.maxCodeLength));
+        return new String(outputBuffer.getBuffer(), outputBuffer.getOffset(), outputBuffer.getLength());
+    }
+
+    @Benchmark
+    public String encodeInPlace(final BenchmarkState state) {
+        return state.encoder.encode(state.nextWord());
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({"ENCODE_ALL", "ENCODE_FIRST", "IGNORE"})
+        VowelsMode vowelsMode;
+
+        @Param({"4", "8"})
+        int maxCodeLength;
+
+        @Param({"russian_surnames"})
+        String dictionaryName;
+
+        PhoneticEncoder encoder;
+
+        private String[] words;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = russianPhonetic(vowelsMode, maxCodeLength);
+
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            words = dictionary.toArray(new String[0]);
+        }
+
+        String nextWord() {
+            if (++cursor == words.length) {
+                cursor = 0;
+            }
+            return words[cursor];
+        }
+    }
+}
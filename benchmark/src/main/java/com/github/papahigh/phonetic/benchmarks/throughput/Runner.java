@@ -20,7 +20,7 @@ public class Runner {
         Options opt = new OptionsBuilder()
                 .include(String.format(".*%s.*", ThroughputBenchmark.class.getSimpleName()))
                 .param("dictionaryName", Config.getDictionariesStream().toArray(String[]::new))
-                .param("encoderName", Config.getEncodersStream().toArray(String[]::new))
+                .param("encoderName", Config.getThroughputEncodersStream().toArray(String[]::new))
                 .threads(1)
                 .warmupIterations(5)
                 .measurementIterations(10)
@@ -0,0 +1,102 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.StreamEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.benchmarks.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Compares encoding of a text split into String words beforehand
+ * against the text encoded with StreamEncoder which splits and encodes the words in place.
+ * Every operation is a single word, so gc.alloc.rate.norm (with GC profiler) is reported in bytes per word.
+ */
+public class StreamEncodingBenchmark {
+
+    static final int WORDS_PER_TEXT = 1000;
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS_PER_TEXT)
+    public int encodeSplitWords(final BenchmarkState state) {
+        String text = state.nextText();
+        int length = 0;
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && text.charAt(i) != ' ') {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else if (wordStart >= 0) {
+                length += state.encoder.encode(text.substring(wordStart, i)).length();
+                wordStart = -1;
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS_PER_TEXT)
+    public long encodeStream(final BenchmarkState state) throws IOException {
+        return state.streamEncoder.encode(new StringReader(state.nextText()), state.consumer);
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({"ENCODE_ALL", "ENCODE_FIRST"})
+        VowelsMode vowelsMode;
+
+        @Param({"8"})
+        int maxCodeLength;
+
+        @Param({"russian_orthography", "russian_surnames"})
+        String dictionaryName;
+
+        PhoneticEncoder encoder;
+        StreamEncoder streamEncoder;
+        StreamEncoder.CodeConsumer consumer;
+        int consumed;
+
+        private String[] texts;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = russianPhonetic(vowelsMode, maxCodeLength);
+            streamEncoder = new StreamEncoder(encoder);
+            consumer = (offset, length, code, codeLength) -> consumed += codeLength;
+
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            Random random = new Random(42);
+            texts = new String[64];
+            for (int i = 0; i < texts.length; i++) {
+                StringBuilder text = new StringBuilder();
+                for (int j = 0; j < WORDS_PER_TEXT; j++) {
+                    text.append(dictionary.get(random.nextInt(dictionary.size()))).append(' ');
+                }
+                texts[i] = text.toString();
+            }
+        }
+
+        String nextText() {
+            if (++cursor == texts.length) {
+                cursor = 0;
+            }
+            return texts[cursor];
+        }
+    }
+}
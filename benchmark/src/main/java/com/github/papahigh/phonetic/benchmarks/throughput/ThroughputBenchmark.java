@@ -1,8 +1,6 @@
 package com.github.papahigh.phonetic.benchmarks.throughput;
 
-import com.github.papahigh.phonetic.generated.RussianMorphologyDictionary;
-import com.github.papahigh.phonetic.generated.RussianOrthographicDictionary;
-import com.github.papahigh.phonetic.generated.RussianSurnamesDictionary;
+import com.github.papahigh.phonetic.benchmarks.Config;
 import org.apache.commons.codec.EncoderException;
 import org.apache.commons.codec.StringEncoder;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -42,19 +40,7 @@ public class ThroughputBenchmark {
         @Setup(Level.Trial)
         public void setUp() {
             encoder = createEncoder(encoderName);
-            switch (dictionaryName) {
-                case "russian_orthography":
-                    dictionary = RussianOrthographicDictionary.DICT;
-                    break;
-                case "russian_surnames":
-                    dictionary = RussianSurnamesDictionary.DICT;
-                    break;
-                case "russian_morphology":
-                    dictionary = RussianMorphologyDictionary.DICT;
-                    break;
-                default:
-                    throw new IllegalArgumentException();
-            }
+            dictionary = Config.getGeneratedDictionary(dictionaryName);
         }
 
         @Setup(Level.Invocation)
@@ -0,0 +1,77 @@
+package com.github.papahigh.phonetic.benchmarks.throughput;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.Utf8Encoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.benchmarks.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Compares encoding of UTF-8 encoded words decoded into Strings beforehand
+ * against the words encoded straight from their bytes.
+ */
+public class Utf8EncodingBenchmark {
+
+    @Benchmark
+    public byte[] encodeDecodedString(final BenchmarkState state) {
+        byte[] word = state.nextWord();
+        return state.encoder.encode(new String(word, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int encodeBytes(final BenchmarkState state) {
+        byte[] word = state.nextWord();
+        return state.utf8Encoder.encode(word, 0, word.length, state.target, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({"ENCODE_ALL", "ENCODE_FIRST", "IGNORE"})
+        VowelsMode vowelsMode;
+
+        @Param({"4", "8"})
+        int maxCodeLength;
+
+        @Param({"russian_orthography", "russian_surnames"})
+        String dictionaryName;
+
+        PhoneticEncoder encoder;
+        Utf8Encoder utf8Encoder;
+        byte[] target;
+
+        private byte[][] words;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = russianPhonetic(vowelsMode, maxCodeLength);
+            utf8Encoder = new Utf8Encoder(encoder);
+            target = new byte[utf8Encoder.getMaximumBytesLength()];
+
+            List<String> dictionary = Config.getGeneratedDictionary(dictionaryName);
+            words = new byte[dictionary.size()][];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        byte[] nextWord() {
+            if (++cursor == words.length) {
+                cursor = 0;
+            }
+            return words[cursor];
+        }
+    }
+}
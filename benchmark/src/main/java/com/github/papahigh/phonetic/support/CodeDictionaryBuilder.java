@@ -0,0 +1,36 @@
+package com.github.papahigh.phonetic.support;
+
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.dictionary.CodeDictionaryWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Writes code dictionary for a word list file (UTF-8, one word per line) using Russian encoding rules.
+ * <p>
+ * Usage: CodeDictionaryBuilder &lt;words file&gt; &lt;dictionary file&gt; [encode_first|encode_all|ignore] [max code length]
+ */
+public class CodeDictionaryBuilder {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CodeDictionaryBuilder <words file> <dictionary file> " +
+                    "[encode_first|encode_all|ignore] [max code length]");
+            System.exit(1);
+        }
+        VowelsMode vowelsMode = args.length > 2 ? VowelsMode.valueOf(args[2].toUpperCase(Locale.ROOT)) : VowelsMode.ENCODE_FIRST;
+        int maximumLength = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        int count = new CodeDictionaryWriter(russianPhonetic(vowelsMode, maximumLength))
+                .write(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8), Paths.get(args[1]));
+
+        System.out.printf(Locale.ROOT, "%d words written to [%s]%n", count, args[1]);
+    }
+}
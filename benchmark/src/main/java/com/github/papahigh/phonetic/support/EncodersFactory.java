@@ -40,6 +40,15 @@ public final class EncodersFactory {
             case "Russian0V":
                 encoder = russianPhonetic(VowelsMode.IGNORE, maxLength);
                 break;
+            case "RussianAVC":
+                encoder = russianPhoneticCompiled(VowelsMode.ENCODE_ALL, maxLength);
+                break;
+            case "Russian1VC":
+                encoder = russianPhoneticCompiled(VowelsMode.ENCODE_FIRST, maxLength);
+                break;
+            case "Russian0VC":
+                encoder = russianPhoneticCompiled(VowelsMode.IGNORE, maxLength);
+                break;
             case "Metaphone":
                 encoder = metaphone(maxLength);
                 break;
@@ -76,6 +85,15 @@ public final class EncodersFactory {
             case "Russian1V[4]":
                 encoder = russianPhonetic(VowelsMode.ENCODE_FIRST, 4);
                 break;
+            case "RussianAVC[8]":
+                encoder = russianPhoneticCompiled(VowelsMode.ENCODE_ALL, 8);
+                break;
+            case "Russian1VC[8]":
+                encoder = russianPhoneticCompiled(VowelsMode.ENCODE_FIRST, 8);
+                break;
+            case "Russian1VC[4]":
+                encoder = russianPhoneticCompiled(VowelsMode.ENCODE_FIRST, 4);
+                break;
             case "Metaphone[4]":
                 encoder = metaphone(4);
                 break;
@@ -120,7 +138,7 @@ public final class EncodersFactory {
     };
 
 
-    public static StringEncoder russianPhonetic(VowelsMode vowelsMode, int codeLength) {
+    public static PhoneticEncoder russianPhonetic(VowelsMode vowelsMode, int codeLength) {
         return new PhoneticEncoder(
                 RussianPhonemeExchange.FACTORY,
                 RussianPhonemeRules.CONSONANTS,
@@ -130,6 +148,16 @@ public final class EncodersFactory {
         );
     }
 
+    public static PhoneticEncoder russianPhoneticCompiled(VowelsMode vowelsMode, int codeLength) {
+        return new PhoneticEncoder(
+                RussianPhonemeExchange.FACTORY,
+                RussianPhonemeRules.COMPILED_CONSONANTS,
+                RussianPhonemeRules.VOWELS,
+                vowelsMode,
+                codeLength
+        );
+    }
+
     static StringEncoder russianPhoneticWithStemmer(VowelsMode vowelsMode, int codeLength) {
         return new StemmingAdapter(
                 vowelsMode,
@@ -0,0 +1,266 @@
+package com.github.papahigh.phonetic.support;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.buffer.Utf8InputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+/**
+ * Builds an inverted index of phonetic codes for a large UTF-8 file of words or names, one per line.
+ * <p>
+ * The file is memory mapped in line aligned chunks which are encoded in parallel, each chunk with its own encoding context
+ * and without creating Strings for the lines. Every line is encoded as a whole the same way as PhoneticEncoder.encode(String)
+ * encodes it, empty lines are skipped. The index is written sorted by code, one code per line followed by a tab
+ * and comma separated numbers (starting with 1) of the lines having that code.
+ * <p>
+ * Usage: PhoneticIndexer &lt;words file&gt; &lt;index file&gt; [encode_first|encode_all|ignore] [max code length] [threads]
+ */
+public class PhoneticIndexer {
+
+    private static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+    private final PhoneticEncoder encoder;
+    private final int threads;
+    private final int chunkSize;
+
+
+    public PhoneticIndexer(PhoneticEncoder encoder, int threads) {
+        this(encoder, threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PhoneticIndexer(PhoneticEncoder encoder, int threads, int chunkSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Illegal number of threads [%d]", threads));
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Illegal chunk size [%d]", chunkSize));
+        }
+        this.encoder = encoder;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+
+    /**
+     * Indexes the lines of the source file and writes the index into the target file.
+     *
+     * @param source UTF-8 file, one word or name per line
+     * @param target file to write the index to
+     * @return number of distinct codes written
+     * @throws IOException if the source can't be read or the target can't be written
+     */
+    public int index(Path source, Path target) throws IOException {
+        Map<String, LineList> index = new TreeMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            List<Future<ChunkIndex>> chunks = new ArrayList<>();
+            long[] bounds = split(channel);
+            for (int i = 1; i < bounds.length; i++) {
+                long start = bounds[i - 1];
+                long end = bounds[i];
+                chunks.add(executor.submit(() -> indexChunk(channel, start, end)));
+            }
+
+            // chunks are merged in order as soon as they are ready, so line numbers are kept sorted
+            int lineOffset = 0;
+            for (Future<ChunkIndex> future : chunks) {
+                ChunkIndex chunk = get(future);
+                for (Map.Entry<String, LineList> entry : chunk.codes.entrySet()) {
+                    index.computeIfAbsent(entry.getKey(), code -> new LineList()).addAll(entry.getValue(), lineOffset);
+                }
+                lineOffset += chunk.lines;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, LineList> entry : index.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                entry.getValue().write(writer);
+                writer.write('\n');
+            }
+        }
+        return index.size();
+    }
+
+
+    /**
+     * @return chunk bounds, every chunk but the last one ends right after a line feed
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long start = 0;
+        while (start < size) {
+            long end = nextLineStart(channel, Math.min(size, start + chunkSize), size);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException(String.format(Locale.ROOT, "Line at offset [%d] is too long to be mapped", start));
+            }
+            bounds.add(end);
+            start = end;
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        // the chunk may already end with a line feed
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private ChunkIndex indexChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        PhonemeExchange exchange = encoder.newExchange();
+        Utf8InputBuffer inputBuffer = new Utf8InputBuffer(encoder.getMaximumLength());
+        char[] code = new char[encoder.getMaximumLength()];
+        byte[] line = new byte[256];
+        int length = 0;
+
+        ChunkIndex chunk = new ChunkIndex();
+        while (bytes.hasRemaining()) {
+            byte b = bytes.get();
+            if (b != '\n') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length << 1);
+                }
+                line[length++] = b;
+                continue;
+            }
+            chunk.add(line, length, inputBuffer, exchange, code);
+            length = 0;
+        }
+        if (length > 0) {
+            // last line of the file without line feed
+            chunk.add(line, length, inputBuffer, exchange, code);
+        }
+        return chunk;
+    }
+
+    private static ChunkIndex get(Future<ChunkIndex> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Indexing has been interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    private final class ChunkIndex {
+
+        final Map<String, LineList> codes = new HashMap<>();
+        int lines;
+
+        void add(byte[] line, int length, Utf8InputBuffer inputBuffer, PhonemeExchange exchange, char[] code) {
+            int lineNumber = ++lines;
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            if (length == 0) {
+                return;
+            }
+            int codeLength;
+            try {
+                codeLength = encoder.encode(inputBuffer.reset(line, 0, length), exchange, code, 0);
+            } catch (Exception ignore) {
+                return;
+            }
+            if (codeLength > 0) {
+                codes.computeIfAbsent(new String(code, 0, codeLength), c -> new LineList()).add(lineNumber);
+            }
+        }
+    }
+
+
+    private static final class LineList {
+
+        private int[] lines = new int[4];
+        private int size;
+
+        void add(int line) {
+            if (size == lines.length) {
+                lines = Arrays.copyOf(lines, size << 1);
+            }
+            lines[size++] = line;
+        }
+
+        void addAll(LineList other, int offset) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.lines[i] + offset);
+            }
+        }
+
+        void write(BufferedWriter writer) throws IOException {
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(Integer.toString(lines[i]));
+            }
+        }
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: PhoneticIndexer <words file> <index file> "
+                    + "[encode_first|encode_all|ignore] [max code length] [threads]");
+            System.exit(1);
+        }
+        VowelsMode vowelsMode = args.length > 2 ? VowelsMode.valueOf(args[2].toUpperCase(Locale.ROOT)) : VowelsMode.ENCODE_FIRST;
+        int maxCodeLength = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        int codes = new PhoneticIndexer(russianPhonetic(vowelsMode, maxCodeLength), threads)
+                .index(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.printf(Locale.ROOT, "Indexed %s into %d codes in %d ms%n", args[0], codes, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -66,7 +66,7 @@ final class StemmingAdapter implements StringEncoder {
         if (code.getLength() == 0) {
             return "";
         }
-        return new String(code.getBuffer(), 0, code.getLength());
+        return new String(code.getBuffer(), code.getOffset(), code.getLength());
     }
 
     @Override
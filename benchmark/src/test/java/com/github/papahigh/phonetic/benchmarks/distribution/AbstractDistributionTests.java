@@ -17,7 +17,7 @@ abstract class AbstractDistributionTests extends TestCase {
     abstract List<String> getDictionary();
 
     StatsCalculator.DictionaryStats getDictionaryStats(VowelsMode vowelsMode, int maxCodeLength) {
-        return statsCalculator(getDictionary(), russianPhonetic(vowelsMode, maxCodeLength))
+        return statsCalculator(getDictionary(), () -> russianPhonetic(vowelsMode, maxCodeLength))
                 .withMaxBucketStats()
                 .calculate();
     }
@@ -0,0 +1,121 @@
+package com.github.papahigh.phonetic.benchmarks.gc;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.generated.RussianSurnamesDictionary;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import junit.framework.TestCase;
+import org.apache.commons.codec.EncoderException;
+import org.apache.commons.codec.StringEncoder;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.createEncoder;
+
+
+/**
+ * Fails the build when an allocation sneaks into the encoding path of Russian encoders.
+ * Allocated bytes of the current thread are sampled around every pass over the surnames dictionary
+ * and the least allocating pass is compared to the budget, so that JIT compiled code (with escape analysis)
+ * is measured rather than the warm up.
+ * Budgets leave a quarter or so of headroom above the bytes per encode measured on JDK 11, so a new allocation
+ * per encoded word (e.g. a copy of the input) fails the test while JVM differences don't.
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class AllocationBudgetTests extends TestCase {
+
+    private static final int PASSES = 20;
+
+    private static final List<String> WORDS = RussianSurnamesDictionary.DICT;
+
+    private static final String[] ENCODERS = {
+            "RussianAV[8]", "Russian1V[8]", "Russian1V[4]", "RussianAVC[8]", "Russian1VC[8]", "Russian1VC[4]"
+    };
+
+    private static final String[] STEMMING_ENCODERS = {"RussianAVS[8]", "Russian1VS[8]", "Russian1VS[4]"};
+
+    private com.sun.management.ThreadMXBean threadBean;
+
+    @Before
+    public void setUpThreadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void testStringEncoding() throws EncoderException {
+        // input buffer, encoding context and the code string
+        for (String name : ENCODERS) {
+            assertStringEncodingBudget(name, createEncoder(name), 320);
+        }
+        // plus the term copy and stemmed input buffer
+        for (String name : STEMMING_ENCODERS) {
+            assertStringEncodingBudget(name, createEncoder(name), 360);
+        }
+    }
+
+    @Test
+    public void testSingleThreadEncoding() throws EncoderException {
+        // code string only
+        for (String name : ENCODERS) {
+            PhoneticEncoder encoder = (PhoneticEncoder) createEncoder(name);
+            assertStringEncodingBudget(name + " single thread", encoder.newSingleThreadEncoder(), 100);
+        }
+    }
+
+    @Test
+    public void testReusedExchangeEncoding() {
+        // nothing at all
+        for (String name : ENCODERS) {
+            PhoneticEncoder encoder = (PhoneticEncoder) createEncoder(name);
+            PhonemeExchange exchange = encoder.newExchange();
+            LimitedLengthInputBuffer inputBuffer = new LimitedLengthInputBuffer(new char[0], 0, encoder.getMaximumLength());
+            char[] target = new char[encoder.getMaximumLength()];
+            char[][] words = WORDS.stream().map(word -> word.toLowerCase(Locale.ROOT).toCharArray()).toArray(char[][]::new);
+
+            long bytes = Long.MAX_VALUE;
+            for (int pass = 0; pass < PASSES; pass++) {
+                long allocated = allocatedBytes();
+                for (char[] word : words) {
+                    encoder.encode(inputBuffer.reset(word, word.length), exchange, target, 0);
+                }
+                bytes = Math.min(bytes, allocatedBytes() - allocated);
+            }
+            assertBudget(name + " with reused exchange", bytes, 1);
+        }
+    }
+
+    private void assertStringEncodingBudget(String name, StringEncoder encoder, int bytesPerEncode)
+            throws EncoderException {
+        long bytes = Long.MAX_VALUE;
+        for (int pass = 0; pass < PASSES; pass++) {
+            long allocated = allocatedBytes();
+            for (String word : WORDS) {
+                encoder.encode(word);
+            }
+            bytes = Math.min(bytes, allocatedBytes() - allocated);
+        }
+        assertBudget(name, bytes, bytesPerEncode);
+    }
+
+    private static void assertBudget(String name, long bytes, int bytesPerEncode) {
+        double perEncode = (double) bytes / WORDS.size();
+        System.out.println(String.format(Locale.ROOT, "%s: %.1f bytes per encode", name, perEncode));
+        assertTrue(String.format(Locale.ROOT, "%s allocates %.1f bytes per encode, budget is %d bytes",
+                name, perEncode, bytesPerEncode), perEncode < bytesPerEncode);
+    }
+
+    private long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
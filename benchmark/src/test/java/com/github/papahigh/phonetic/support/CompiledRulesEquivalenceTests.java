@@ -0,0 +1,52 @@
+package com.github.papahigh.phonetic.support;
+
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.generated.RussianMorphologyDictionary;
+import com.github.papahigh.phonetic.generated.RussianOrthographicDictionary;
+import com.github.papahigh.phonetic.generated.RussianSurnamesDictionary;
+import junit.framework.TestCase;
+import org.apache.commons.codec.StringEncoder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.util.List;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhoneticCompiled;
+
+
+@RunWith(BlockJUnit4ClassRunner.class)
+public class CompiledRulesEquivalenceTests extends TestCase {
+
+    @Test
+    public void testOrthographicDictionary() {
+        assertSameCodes(RussianOrthographicDictionary.DICT);
+    }
+
+    @Test
+    public void testSurnamesDictionary() {
+        assertSameCodes(RussianSurnamesDictionary.DICT);
+    }
+
+    @Test
+    public void testMorphologyDictionary() {
+        assertSameCodes(RussianMorphologyDictionary.DICT);
+    }
+
+    private static void assertSameCodes(List<String> dictionary) {
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            for (int maxLength : new int[]{1, 4, 8, 14}) {
+                StringEncoder interpreted = russianPhonetic(vowelsMode, maxLength);
+                StringEncoder compiled = russianPhoneticCompiled(vowelsMode, maxLength);
+                for (String word : dictionary) {
+                    try {
+                        assertEquals(word, interpreted.encode(word), compiled.encode(word));
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        }
+    }
+}
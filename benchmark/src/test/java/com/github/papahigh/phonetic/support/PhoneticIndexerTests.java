@@ -0,0 +1,63 @@
+package com.github.papahigh.phonetic.support;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.generated.RussianSurnamesDictionary;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.github.papahigh.phonetic.support.EncodersFactory.russianPhonetic;
+
+
+@RunWith(BlockJUnit4ClassRunner.class)
+public class PhoneticIndexerTests extends TestCase {
+
+    @Test
+    public void testIndexMatchesSingleThreadEncoding() throws IOException {
+        List<String> lines = new ArrayList<>(RussianSurnamesDictionary.DICT);
+        lines.add(3, "");
+        lines.add(7, "Иванов\r");
+        lines.add(11, "ДУБ");
+        PhoneticEncoder encoder = russianPhonetic(VowelsMode.ENCODE_ALL, 8);
+
+        Map<String, List<Integer>> expected = new TreeMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).replace("\r", "");
+            if (!line.isEmpty()) {
+                expected.computeIfAbsent(encoder.encode(line), code -> new ArrayList<>()).add(i + 1);
+            }
+        }
+        StringBuilder expectedIndex = new StringBuilder();
+        expected.forEach((code, numbers) -> expectedIndex.append(code).append('\t')
+                .append(numbers.toString().replaceAll("[\\[\\] ]", "")).append('\n'));
+
+        Path source = Files.createTempFile("phonetic-indexer", ".txt");
+        Path target = Files.createTempFile("phonetic-indexer", ".idx");
+        try {
+            // with and without line feed at the end of the file
+            for (String text : new String[]{String.join("\n", lines), String.join("\n", lines) + "\n"}) {
+                Files.write(source, text.getBytes(StandardCharsets.UTF_8));
+                // small chunks make most of the chunk bounds fall in the middle of a line
+                for (int chunkSize : new int[]{1, 100, 4096, 1 << 20}) {
+                    int codes = new PhoneticIndexer(encoder, 3, chunkSize).index(source, target);
+                    assertEquals(expected.size(), codes);
+                    assertEquals(expectedIndex.toString(), new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic;
+
+import org.apache.commons.codec.EncoderException;
+import org.apache.commons.codec.StringEncoder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+
+/**
+ * Encodes large word lists (e.g. dictionaries) in parallel using ForkJoinPool.
+ * Input is split into chunks and every chunk is encoded by its own encoder taken from the supplier,
+ * so encoders which are not thread safe (e.g. stemming ones) can be used as well.
+ * PhoneticEncoder instances are replaced with their single thread encoders,
+ * so each chunk reuses one encoding context for all its words.
+ * <p>
+ * This class is thread safe.
+ *
+ * @see PhoneticEncoder#newSingleThreadEncoder()
+ */
+public final class BulkEncoder {
+
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final Supplier<? extends StringEncoder> encoderSupplier;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+
+    public BulkEncoder(Supplier<? extends StringEncoder> encoderSupplier) {
+        this(encoderSupplier, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkEncoder(Supplier<? extends StringEncoder> encoderSupplier, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Illegal chunk size [%d]", chunkSize));
+        }
+        this.encoderSupplier = encoderSupplier;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+
+    /**
+     * Encodes all the supplied words.
+     *
+     * @param words words to encode
+     * @return array of codes where i-th code corresponds to the i-th word
+     */
+    public String[] encode(List<String> words) {
+        String[] codes = new String[words.size()];
+        pool.invoke(new EncodeTask(words, codes, 0, words.size()));
+        return codes;
+    }
+
+
+    /**
+     * Encodes all the supplied words and groups them by their phonetic code.
+     *
+     * @param words words to encode
+     * @return map of phonetic codes to sets of words having that code
+     */
+    public Map<String, Set<String>> index(List<String> words) {
+        return pool.invoke(new IndexTask(words, 0, words.size()));
+    }
+
+
+    private StringEncoder newEncoder() {
+        StringEncoder encoder = encoderSupplier.get();
+        if (encoder instanceof PhoneticEncoder) {
+            return ((PhoneticEncoder) encoder).newSingleThreadEncoder();
+        }
+        return encoder;
+    }
+
+    private static String encode(StringEncoder encoder, String word) {
+        try {
+            return encoder.encode(word);
+        } catch (EncoderException e) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Unable to encode [%s]", word), e);
+        }
+    }
+
+
+    private final class EncodeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> words;
+        private final String[] codes;
+        private final int from;
+        private final int to;
+
+        EncodeTask(List<String> words, String[] codes, int from, int to) {
+            this.words = words;
+            this.codes = codes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EncodeTask(words, codes, from, middle), new EncodeTask(words, codes, middle, to));
+            } else {
+                StringEncoder encoder = newEncoder();
+                for (int i = from; i < to; i++) {
+                    codes[i] = encode(encoder, words.get(i));
+                }
+            }
+        }
+    }
+
+
+    private final class IndexTask extends RecursiveTask<Map<String, Set<String>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> words;
+        private final int from;
+        private final int to;
+
+        IndexTask(List<String> words, int from, int to) {
+            this.words = words;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, Set<String>> compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                IndexTask right = new IndexTask(words, middle, to);
+                right.fork();
+                return merge(new IndexTask(words, from, middle).compute(), right.join());
+            }
+            StringEncoder encoder = newEncoder();
+            Map<String, Set<String>> index = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                String word = words.get(i);
+                index.computeIfAbsent(encode(encoder, word), code -> new HashSet<>()).add(word);
+            }
+            return index;
+        }
+
+        private Map<String, Set<String>> merge(Map<String, Set<String>> left, Map<String, Set<String>> right) {
+            if (left.size() < right.size()) {
+                return merge(right, left);
+            }
+            right.forEach((code, bucket) -> left.merge(code, bucket, (a, b) -> {
+                if (a.size() < b.size()) {
+                    b.addAll(a);
+                    return b;
+                }
+                a.addAll(b);
+                return a;
+            }));
+            return left;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.github.papahigh.phonetic;
 import com.github.papahigh.phonetic.buffer.Buffer;
 import com.github.papahigh.phonetic.buffer.InputBuffer;
 import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.buffer.LowerCaseInputBuffer;
 import com.github.papahigh.phonetic.buffer.StemmedInputBuffer;
 import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
 import com.github.papahigh.phonetic.phoneme.PhonemeExchangeFactory;
@@ -25,7 +26,8 @@ import com.github.papahigh.phonetic.phoneme.PhonemeRule;
 import org.apache.commons.codec.EncoderException;
 import org.apache.commons.codec.StringEncoder;
 
-import java.util.Locale;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 
 
 /**
@@ -41,6 +43,11 @@ import java.util.Locale;
  */
 public final class PhoneticEncoder implements StringEncoder {
 
+    /**
+     * Maximum number of ambiguous rule sites combined by encodeAlternatives
+     */
+    public static final int MAX_ALTERNATIVE_SITES = 8;
+
     private final PhonemeExchangeFactory exchangeFactory;
     private final PhonemeRule consonantRules;
     private final PhonemeRule vowelRules;
@@ -61,7 +68,7 @@ public final class PhoneticEncoder implements StringEncoder {
     /**
      * Encodes an input String into phonetic code using the provided rules.
      * Maximum length of the result is controlled by maximumLength class field value.
-     * The input string is converted to lowercase.
+     * Letters are lowercased (regardless of the default locale) while the input is encoded.
      * Limitations: Input format is expected to be a single ASCII word.
      *
      * @param source String object to encode
@@ -69,12 +76,39 @@ public final class PhoneticEncoder implements StringEncoder {
      */
     @Override
     public String encode(String source) {
+        return encode((CharSequence) source);
+    }
+
+
+    /**
+     * Encodes a sequence of chars into phonetic code using the provided rules.
+     * Maximum length of the result is controlled by maximumLength class field value.
+     * Letters are lowercased (regardless of the default locale) while the input is encoded,
+     * so the source is read in place without intermediate copies.
+     *
+     * @param source chars to encode
+     * @return The phonetic code corresponding to the chars supplied.
+     * @see LowerCaseInputBuffer
+     */
+    public String encode(CharSequence source) {
         if (source == null || source.length() == 0) {
             return "";
         }
-        char[] buffer = source.toLowerCase(Locale.getDefault()).toCharArray();
-        Buffer outputBuffer = encode(new LimitedLengthInputBuffer(buffer, source.length(), maximumLength));
-        return new String(outputBuffer.getBuffer(), 0, outputBuffer.getLength());
+        Buffer outputBuffer = encode(new LowerCaseInputBuffer(source, maximumLength));
+        return new String(outputBuffer.getBuffer(), outputBuffer.getOffset(), outputBuffer.getLength());
+    }
+
+
+    /**
+     * Creates a StringEncoder which encodes all its input using a single encoding context.
+     * Returned encoder is not thread safe and should be confined to a single thread
+     * (e.g. one per worker of a bulk encoding job).
+     *
+     * @return new single thread encoder producing the same codes as this encoder
+     * @see #newExchange()
+     */
+    public StringEncoder newSingleThreadEncoder() {
+        return new SingleThreadEncoder();
     }
 
 
@@ -82,11 +116,11 @@ public final class PhoneticEncoder implements StringEncoder {
      * Encodes an input Object to phonetic code using the provided rules.
      * <p>
      * This method will throw an EncoderException if the
-     * supplied object is not of type java.lang.String or com.github.papahigh.phonetic.buffer.InputBuffer.
+     * supplied object is not of type java.lang.CharSequence or com.github.papahigh.phonetic.buffer.InputBuffer.
      *
      * @param source Object to encode
      * @return An object containing the phonetic code which corresponds to the Object supplied.
-     * @throws EncoderException if the parameter supplied is not of type java.lang.String
+     * @throws EncoderException if the parameter supplied is not of type java.lang.CharSequence
      *                          or com.github.papahigh.phonetic.buffer.InputBuffer
      */
     @Override
@@ -94,8 +128,8 @@ public final class PhoneticEncoder implements StringEncoder {
         if (source instanceof InputBuffer) {
             return encode((InputBuffer) source);
         }
-        if (source instanceof String) {
-            return encode((String) source);
+        if (source instanceof CharSequence) {
+            return encode((CharSequence) source);
         }
         throw new EncoderException("Unsupported parameter type supplied to [PhoneticEncoder]");
     }
@@ -113,8 +147,177 @@ public final class PhoneticEncoder implements StringEncoder {
      * @see LimitedLengthInputBuffer
      */
     public Buffer encode(InputBuffer buffer) {
+        return applyRules(exchangeFactory.create(buffer, vowelsMode));
+    }
 
-        PhonemeExchange exchange = exchangeFactory.create(buffer, vowelsMode);
+
+    /**
+     * Encodes an InputBuffer into phonetic code reusing the supplied encoding context,
+     * so that steady-state encoding doesn't allocate.
+     * Returned buffer is owned by the exchange and remains valid until its next use.
+     * Limitations: Input buffer letters are expected to be in lowercase.
+     *
+     * @param buffer   input buffer to encode
+     * @param exchange encoding context created by this encoder via newExchange()
+     * @return buffer containing the phonetic code which corresponds to the supplied input.
+     * @see #newExchange()
+     */
+    public Buffer encode(InputBuffer buffer, PhonemeExchange exchange) {
+        return applyRules(exchange.reset(buffer));
+    }
+
+
+    /**
+     * Encodes an InputBuffer into phonetic code writing it straight into the supplied array.
+     * Target must have room for buffer.getLimit() chars starting at offset
+     * (i.e. maximum code length unless stemming analysis shortens it).
+     * Input and target regions must not overlap since rules look at the previous and next input chars.
+     * Limitations: Input buffer letters are expected to be in lowercase.
+     *
+     * @param buffer   input buffer to encode
+     * @param exchange encoding context created by this encoder via newExchange()
+     * @param target   array receiving the phonetic code
+     * @param offset   position of the first code char in target
+     * @return length of the phonetic code written to target
+     * @throws IndexOutOfBoundsException if target has no room for the code at offset
+     */
+    public int encode(InputBuffer buffer, PhonemeExchange exchange, char[] target, int offset) {
+        return applyRules(exchange.reset(buffer, target, offset)).getLength();
+    }
+
+
+    /**
+     * Encodes a batch of words packed into a single array using one encoding context for the whole batch.
+     * Codes are packed into the target array one after another, code of the i-th word
+     * occupies target positions from codeOffsets[i] (inclusive) to codeOffsets[i + 1] (exclusive).
+     * Letters are lowercased (regardless of the default locale) while the words are encoded,
+     * the source array is left unchanged.
+     *
+     * @param source      packed words
+     * @param offsets     position of each word in source
+     * @param lengths     length of each word in source
+     * @param count       number of words to encode
+     * @param target      array receiving the codes, must have room for maximumLength chars per word
+     * @param codeOffsets array of count + 1 elements receiving code boundaries in target
+     * @return total number of chars written to target
+     * @throws IndexOutOfBoundsException if target has no room for the codes
+     */
+    public int encode(char[] source, int[] offsets, int[] lengths, int count, char[] target, int[] codeOffsets) {
+        PhonemeExchange exchange = newExchange();
+        CharBuffer chars = CharBuffer.wrap(source);
+        LowerCaseInputBuffer inputBuffer = new LowerCaseInputBuffer(chars, 0, 0, maximumLength);
+
+        int position = 0;
+        codeOffsets[0] = position;
+        for (int i = 0; i < count; i++) {
+            position += encode(inputBuffer.reset(chars, offsets[i], lengths[i]), exchange, target, position);
+            codeOffsets[i + 1] = position;
+        }
+        return position;
+    }
+
+
+    /**
+     * Encodes an input String into distinct alternative phonetic codes.
+     * First code is the one returned by encode(String), the rest of the codes are produced by taking
+     * the alternative encoding at ambiguous rule sites (e.g. voicing at the end of word or first vowel mapping).
+     * Sites are combined in order of their number, so that codes which differ from the primary one
+     * at a single site come first. Only the first MAX_ALTERNATIVE_SITES sites of the word are considered.
+     *
+     * @param source   String object to encode
+     * @param maxCodes maximum number of codes to produce
+     * @return distinct phonetic codes corresponding to the String supplied.
+     */
+    public String[] encodeAlternatives(CharSequence source, int maxCodes) {
+        if (source == null || source.length() == 0) {
+            return new String[]{""};
+        }
+        char[] target = new char[maxCodes * maximumLength];
+        int[] codeOffsets = new int[maxCodes + 1];
+        int count = encodeAlternatives(new LowerCaseInputBuffer(source, maximumLength), newExchange(), maxCodes, target, codeOffsets);
+
+        String[] codes = new String[count];
+        for (int i = 0; i < count; i++) {
+            codes[i] = new String(target, codeOffsets[i], codeOffsets[i + 1] - codeOffsets[i]);
+        }
+        return codes;
+    }
+
+
+    /**
+     * Encodes an InputBuffer into distinct alternative phonetic codes reusing the supplied encoding context.
+     * Codes are packed into the target array one after another, the i-th code
+     * occupies target positions from codeOffsets[i] (inclusive) to codeOffsets[i + 1] (exclusive).
+     * First code is always the one produced by encode(InputBuffer, PhonemeExchange).
+     * Limitations: Input buffer letters are expected to be in lowercase.
+     *
+     * @param buffer      input buffer to encode
+     * @param exchange    encoding context created by this encoder via newExchange()
+     * @param maxCodes    maximum number of codes to produce
+     * @param target      array receiving the codes, must have room for buffer.getLimit() chars per code
+     * @param codeOffsets array of maxCodes + 1 elements receiving code boundaries in target
+     * @return number of codes written to target
+     * @throws IndexOutOfBoundsException if target has no room for the codes
+     * @see #encodeAlternatives(CharSequence, int)
+     */
+    public int encodeAlternatives(InputBuffer buffer, PhonemeExchange exchange, int maxCodes,
+                                  char[] target, int[] codeOffsets) {
+        int position = encode(buffer, exchange, target, 0);
+        codeOffsets[0] = 0;
+        codeOffsets[1] = position;
+
+        int count = 1;
+        int sites = Math.min(exchange.getAlternativeSites(), MAX_ALTERNATIVE_SITES);
+        for (int selected = 1; selected <= sites && count < maxCodes; selected++) {
+            for (int mask = 1; mask < 1 << sites && count < maxCodes; mask++) {
+                if (Integer.bitCount(mask) != selected) {
+                    continue;
+                }
+                buffer.rewind();
+                int length = applyRules(exchange.reset(buffer, target, position).setAlternatives(mask)).getLength();
+                if (!containsCode(target, codeOffsets, count, position, length)) {
+                    position += length;
+                    codeOffsets[++count] = position;
+                }
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Creates an encoding context which can be owned by a single thread
+     * (e.g. one per token stream) and reused across encodings.
+     *
+     * @return new encoding context for this encoder
+     * @see #encode(InputBuffer, PhonemeExchange)
+     */
+    public PhonemeExchange newExchange() {
+        return exchangeFactory.create(new LimitedLengthInputBuffer(new char[0], 0, maximumLength), vowelsMode);
+    }
+
+
+    public VowelsMode getVowelsMode() {
+        return vowelsMode;
+    }
+
+
+    public int getMaximumLength() {
+        return maximumLength;
+    }
+
+
+    private static boolean containsCode(char[] target, int[] codeOffsets, int count, int offset, int length) {
+        for (int i = 0; i < count; i++) {
+            if (Arrays.equals(target, codeOffsets[i], codeOffsets[i + 1], target, offset, offset + length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private Buffer applyRules(PhonemeExchange exchange) {
 
         do {
             exchange.pickUpCurr();
@@ -130,4 +333,31 @@ public final class PhoneticEncoder implements StringEncoder {
         return exchange.getOutputBuffer();
     }
 
+
+    private final class SingleThreadEncoder implements StringEncoder {
+
+        private final PhonemeExchange exchange = newExchange();
+        private final LowerCaseInputBuffer inputBuffer = new LowerCaseInputBuffer("", maximumLength);
+
+        @Override
+        public Object encode(Object source) throws EncoderException {
+            if (source instanceof CharSequence) {
+                return encode((CharSequence) source);
+            }
+            return PhoneticEncoder.this.encode(source);
+        }
+
+        @Override
+        public String encode(String source) {
+            return encode((CharSequence) source);
+        }
+
+        String encode(CharSequence source) {
+            if (source == null || source.length() == 0) {
+                return "";
+            }
+            Buffer outputBuffer = PhoneticEncoder.this.encode(inputBuffer.reset(source), exchange);
+            return new String(outputBuffer.getBuffer(), outputBuffer.getOffset(), outputBuffer.getLength());
+        }
+    }
 }
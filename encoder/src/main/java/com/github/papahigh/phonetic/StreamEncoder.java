@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic;
+
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.buffer.LowerCaseInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+
+/**
+ * Encodes every Russian word of a text stream without tokenizing it with Lucene, e.g. to process large text exports.
+ * Text is read into a fixed size buffer and scanned for runs of Russian letters, each run is lowercased
+ * and encoded in place, and its code is passed to the consumer along with the position of the word in the stream.
+ * Memory is bounded by the buffer size regardless of the stream length and no objects are created per word.
+ * Produces the same codes as PhoneticEncoder.encode(String) for the words.
+ * <p>
+ * This class is not thread safe and should be confined to a single thread.
+ */
+public final class StreamEncoder {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final PhoneticEncoder encoder;
+    private final PhonemeExchange exchange;
+    private final LimitedLengthInputBuffer inputBuffer;
+    private final char[] code;
+    private final char[] buffer;
+
+
+    /**
+     * Consumes phonetic codes of the words found in the stream.
+     */
+    @FunctionalInterface
+    public interface CodeConsumer {
+
+        /**
+         * @param offset     position of the first char of the word in the stream
+         * @param length     number of chars in the word
+         * @param code       array holding the phonetic code, it is reused for the next word
+         * @param codeLength number of chars in the code
+         * @throws IOException if the code can't be consumed, it stops the encoding
+         */
+        void accept(long offset, int length, char[] code, int codeLength) throws IOException;
+    }
+
+
+    public StreamEncoder(PhoneticEncoder encoder) {
+        this(encoder, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param encoder    phonetic encoder
+     * @param bufferSize number of chars read from the stream at once, words longer than that are truncated
+     */
+    public StreamEncoder(PhoneticEncoder encoder, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Illegal buffer size [%d]", bufferSize));
+        }
+        this.encoder = encoder;
+        this.exchange = encoder.newExchange();
+        this.inputBuffer = new LimitedLengthInputBuffer(new char[0], 0, encoder.getMaximumLength());
+        this.code = new char[encoder.getMaximumLength()];
+        this.buffer = new char[bufferSize];
+    }
+
+
+    /**
+     * Encodes all the words of UTF-8 encoded stream, malformed input is replaced with U+FFFD.
+     * Offsets passed to the consumer are counted in chars of the decoded stream. The channel is not closed.
+     *
+     * @param channel  UTF-8 encoded text
+     * @param consumer consumer of the codes
+     * @return number of encoded words
+     * @throws IOException if the channel can't be read or the consumer fails
+     */
+    public long encode(ReadableByteChannel channel, CodeConsumer consumer) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return encode(Channels.newReader(channel, decoder, -1), consumer);
+    }
+
+    /**
+     * Encodes all the words of the stream. The reader is not closed.
+     *
+     * @param reader   text
+     * @param consumer consumer of the codes
+     * @return number of encoded words
+     * @throws IOException if the reader can't be read or the consumer fails
+     */
+    public long encode(Reader reader, CodeConsumer consumer) throws IOException {
+        long words = 0;
+        long bufferOffset = 0; // position of buffer[0] in the stream
+        int limit = 0;
+        int wordStart = -1;
+        boolean truncated = false;
+
+        int read;
+        while ((read = reader.read(buffer, limit, buffer.length - limit)) >= 0) {
+            int position = limit;
+            limit += read;
+            for (; position < limit; position++) {
+                if (isRussianLetter(buffer[position])) {
+                    if (wordStart < 0 && !truncated) {
+                        wordStart = position;
+                    }
+                } else if (truncated) {
+                    truncated = false;
+                } else if (wordStart >= 0) {
+                    encode(bufferOffset, wordStart, position - wordStart, consumer);
+                    words++;
+                    wordStart = -1;
+                }
+            }
+
+            // the word in progress is moved to the start of the buffer, so that it can be read up to the end
+            if (wordStart < 0) {
+                bufferOffset += limit;
+                limit = 0;
+            } else if (wordStart > 0) {
+                System.arraycopy(buffer, wordStart, buffer, 0, limit - wordStart);
+                bufferOffset += wordStart;
+                limit -= wordStart;
+                wordStart = 0;
+            } else if (limit == buffer.length) {
+                // the rest of the word is skipped
+                encode(bufferOffset, 0, limit, consumer);
+                words++;
+                bufferOffset += limit;
+                limit = 0;
+                wordStart = -1;
+                truncated = true;
+            }
+        }
+        if (wordStart >= 0) {
+            encode(bufferOffset, wordStart, limit - wordStart, consumer);
+            words++;
+        }
+        return words;
+    }
+
+
+    private void encode(long bufferOffset, int offset, int length, CodeConsumer consumer) throws IOException {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            buffer[i] = LowerCaseInputBuffer.toLowerCase(buffer[i]);
+        }
+        int codeLength = encoder.encode(inputBuffer.reset(buffer, offset, length), exchange, code, 0);
+        consumer.accept(bufferOffset + offset, length, code, codeLength);
+    }
+
+    private static boolean isRussianLetter(char ch) {
+        return ch >= 'А' && ch <= 'я' || ch == 'ё' || ch == 'Ё';
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic;
+
+import com.github.papahigh.phonetic.buffer.Utf8InputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+
+import java.util.Arrays;
+
+
+/**
+ * Encodes UTF-8 encoded words (e.g. Lucene BytesRef contents) into UTF-8 encoded phonetic codes,
+ * so that callers holding bytes don't have to create Strings to encode them.
+ * Input is decoded and lowercased in a single pass into an array reused between encodings,
+ * codes are written straight into the supplied target array.
+ * Produces the same codes as PhoneticEncoder.encode(String) for the decoded input.
+ * <p>
+ * This class is not thread safe and should be confined to a single thread.
+ *
+ * @see PhoneticEncoder#encode(CharSequence)
+ */
+public final class Utf8Encoder {
+
+    private final PhoneticEncoder encoder;
+    private final PhonemeExchange exchange;
+    private final Utf8InputBuffer inputBuffer;
+    private final char[] code;
+
+
+    public Utf8Encoder(PhoneticEncoder encoder) {
+        this.encoder = encoder;
+        this.exchange = encoder.newExchange();
+        this.inputBuffer = new Utf8InputBuffer(encoder.getMaximumLength());
+        this.code = new char[encoder.getMaximumLength()];
+    }
+
+
+    /**
+     * Encodes a region of UTF-8 bytes writing UTF-8 bytes of the phonetic code into the supplied array.
+     * Target must have room for getMaximumBytesLength() bytes starting at targetOffset.
+     *
+     * @param source       UTF-8 bytes to encode
+     * @param offset       position of the first byte to encode
+     * @param length       number of bytes to encode
+     * @param target       array receiving UTF-8 bytes of the phonetic code
+     * @param targetOffset position of the first code byte in target
+     * @return number of bytes written to target
+     * @throws IndexOutOfBoundsException if target has no room for the code at targetOffset
+     */
+    public int encode(byte[] source, int offset, int length, byte[] target, int targetOffset) {
+        if (length == 0) {
+            return 0;
+        }
+        int codeLength = encoder.encode(inputBuffer.reset(source, offset, length), exchange, code, 0);
+        int position = targetOffset;
+        for (int i = 0; i < codeLength; i++) {
+            char ch = code[i];
+            if (ch < 0x80) {
+                target[position++] = (byte) ch;
+            } else if (ch < 0x800) {
+                target[position++] = (byte) (0xc0 | ch >> 6);
+                target[position++] = (byte) (0x80 | ch & 0x3f);
+            } else {
+                target[position++] = (byte) (0xe0 | ch >> 12);
+                target[position++] = (byte) (0x80 | ch >> 6 & 0x3f);
+                target[position++] = (byte) (0x80 | ch & 0x3f);
+            }
+        }
+        return position - targetOffset;
+    }
+
+
+    /**
+     * Encodes a region of UTF-8 bytes into UTF-8 bytes of the phonetic code.
+     *
+     * @param source UTF-8 bytes to encode
+     * @param offset position of the first byte to encode
+     * @param length number of bytes to encode
+     * @return UTF-8 bytes of the phonetic code
+     */
+    public byte[] encode(byte[] source, int offset, int length) {
+        byte[] target = new byte[getMaximumBytesLength()];
+        return Arrays.copyOf(target, encode(source, offset, length, target, 0));
+    }
+
+
+    /**
+     * @return maximum number of bytes in a UTF-8 encoded phonetic code
+     */
+    public int getMaximumBytesLength() {
+        return code.length * 3;
+    }
+}
@@ -15,11 +15,10 @@
  */
 package com.github.papahigh.phonetic.buffer;
 
-import java.util.Arrays;
-
 public abstract class AbstractBuffer implements Buffer {
 
     protected char buffer[];
+    protected int offset;
 
     AbstractBuffer(char[] buffer) {
         this.buffer = buffer;
@@ -28,7 +27,7 @@ public abstract class AbstractBuffer implements Buffer {
     public char charAt(int n) {
         char ch = Character.MIN_VALUE;
         if (n >= 0 && n < getLength()) {
-            ch = buffer[n];
+            ch = buffer[offset + n];
         }
         return ch;
     }
@@ -38,21 +37,35 @@ public abstract class AbstractBuffer implements Buffer {
         return buffer;
     }
 
+    @Override
+    public int getOffset() {
+        return offset;
+    }
+
     abstract public int getLength();
 
     @Override
     public boolean equals(Object obj) {
         int length;
         if (obj instanceof AbstractBuffer && (length = getLength()) == ((AbstractBuffer) obj).getLength()) {
-            char[] otherBuffer = ((AbstractBuffer) obj).getBuffer();
-            return Arrays.equals(buffer, 0, length, otherBuffer, 0, length);
+            AbstractBuffer other = (AbstractBuffer) obj;
+            for (int i = 0; i < length; i++) {
+                if (charAt(i) != other.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(buffer);
+        int result = 1;
+        for (int i = 0, length = getLength(); i < length; i++) {
+            result = 31 * result + charAt(i);
+        }
+        return result;
     }
 
 }
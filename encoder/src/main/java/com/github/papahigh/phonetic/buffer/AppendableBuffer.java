@@ -15,41 +15,78 @@
  */
 package com.github.papahigh.phonetic.buffer;
 
-
-import java.util.Arrays;
+import java.util.Locale;
 
 
 /**
  * Represents a char buffer which is responsible for
  * construction of the resulting phonetic code.
+ * <p>
+ * Content never exceeds the limit: chars appended beyond it are counted but not stored,
+ * so the buffer can write straight into a caller-supplied array of limit size.
  */
 public class AppendableBuffer extends AbstractBuffer {
 
-    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
-
+    private char[] ownBuffer;
     private int length;
-    private final int limit;
+    private int limit;
 
     public AppendableBuffer(int length) {
         super(new char[length]);
+        this.ownBuffer = buffer;
         this.limit = length;
     }
 
+    /**
+     * Clears this buffer and sets a new limit keeping already allocated capacity.
+     *
+     * @param limit maximum length of the buffer content
+     */
+    public void reset(int limit) {
+        if (ownBuffer.length < limit) {
+            ownBuffer = new char[limit];
+        }
+        reset(ownBuffer, 0, limit);
+    }
+
+    /**
+     * Clears this buffer and redirects its content to the supplied array.
+     *
+     * @param target array to write content into
+     * @param offset position of the first char in target
+     * @param limit  maximum length of the buffer content
+     * @throws IndexOutOfBoundsException if target has no room for limit chars at offset
+     */
+    public void reset(char[] target, int offset, int limit) {
+        if (offset < 0 || limit < 0 || target.length - offset < limit) {
+            throw new IndexOutOfBoundsException(String.format(Locale.ROOT, "Cannot fit %d chars at offset %d into array of length %d",
+                    limit, offset, target.length));
+        }
+        this.buffer = target;
+        this.offset = offset;
+        this.length = 0;
+        this.limit = limit;
+    }
+
     public void append(char one) {
-        expand(length + 1);
-        buffer[length++] = one;
+        if (length < limit) {
+            buffer[offset + length] = one;
+        }
+        length++;
     }
 
     public void append(char... many) {
-        expand(length + many.length);
-        System.arraycopy(many, 0, buffer, length, many.length);
+        int n = Math.min(many.length, limit - length);
+        if (n > 0) {
+            System.arraycopy(many, 0, buffer, offset + length, n);
+        }
         length += many.length;
     }
 
     public void updateLatest(char newLatest) {
         int i = length - 1;
-        if (i >= 0) {
-            buffer[i] = newLatest;
+        if (i >= 0 && i < limit) {
+            buffer[offset + i] = newLatest;
         }
     }
 
@@ -60,16 +97,6 @@ public class AppendableBuffer extends AbstractBuffer {
 
     @Override
     public String toString() {
-        return new String(buffer, 0, getLength());
-    }
-
-    private void expand(int newCapacity) {
-        int oldCapacity = buffer.length;
-        if (newCapacity - oldCapacity > 0) {
-            if (MAX_ARRAY_SIZE - newCapacity < 0) {
-                throw new OutOfMemoryError();
-            }
-            buffer = Arrays.copyOf(buffer, newCapacity);
-        }
+        return new String(buffer, offset, getLength());
     }
 }
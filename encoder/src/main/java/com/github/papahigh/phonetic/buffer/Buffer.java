@@ -23,6 +23,8 @@ public interface Buffer {
 
     char[] getBuffer();
 
+    int getOffset();
+
     int getLength();
 
 }
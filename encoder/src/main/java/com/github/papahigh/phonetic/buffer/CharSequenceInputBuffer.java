@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.buffer;
+
+
+/**
+ * Represents input buffer over a region of a CharSequence with fixed max-length limit.
+ * Chars are read in place, so e.g. StringBuilder, CharBuffer or term attribute contents are encoded without copying.
+ * Backing array is only filled on getBuffer() call, it's reused between resets and holds the region starting at 0.
+ */
+public class CharSequenceInputBuffer extends InputBuffer {
+
+    private CharSequence source;
+    private int sourceOffset;
+    private boolean copied;
+    private final int maxLength;
+
+    public CharSequenceInputBuffer(CharSequence source, int maxLength) {
+        this(source, 0, source.length(), maxLength);
+    }
+
+    public CharSequenceInputBuffer(CharSequence source, int offset, int length, int maxLength) {
+        super(new char[0], length);
+        this.source = source;
+        this.sourceOffset = offset;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Rebinds this buffer to the supplied input, so the same instance can be reused between encodings.
+     *
+     * @param source chars to encode
+     * @return this buffer
+     */
+    public CharSequenceInputBuffer reset(CharSequence source) {
+        return reset(source, 0, source.length());
+    }
+
+    /**
+     * Rebinds this buffer to a region of the supplied input, so the same instance can be reused between encodings.
+     *
+     * @param source chars to encode
+     * @param offset position of the first char to encode
+     * @param length number of chars to encode
+     * @return this buffer
+     */
+    public CharSequenceInputBuffer reset(CharSequence source, int offset, int length) {
+        setInput(buffer, 0, length);
+        this.source = source;
+        this.sourceOffset = offset;
+        this.copied = false;
+        return this;
+    }
+
+    @Override
+    public char charAt(int n) {
+        char ch = Character.MIN_VALUE;
+        if (n >= 0 && n < getLength()) {
+            ch = source.charAt(sourceOffset + n);
+        }
+        return ch;
+    }
+
+    /**
+     * @return source of the chars to encode
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * Copies the region (as read by charAt) into the backing array, which is valid until this buffer is reset.
+     *
+     * @return array holding the region starting at 0
+     */
+    @Override
+    public char[] getBuffer() {
+        if (!copied) {
+            int length = getLength();
+            if (buffer.length < length) {
+                buffer = new char[length];
+            }
+            for (int i = 0; i < length; i++) {
+                buffer[i] = charAt(i);
+            }
+            copied = true;
+        }
+        return buffer;
+    }
+
+    @Override
+    public void dropChar() {
+        // do nothing
+    }
+
+    @Override
+    public void dropChars(int n) {
+        // do nothing
+    }
+
+    @Override
+    public void dropChars2() {
+        // do nothing
+    }
+
+    @Override
+    public int getLimit() {
+        return maxLength;
+    }
+}
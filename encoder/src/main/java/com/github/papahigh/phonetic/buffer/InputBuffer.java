@@ -21,15 +21,28 @@ package com.github.papahigh.phonetic.buffer;
  */
 public abstract class InputBuffer extends AbstractBuffer {
 
-    private final int length;
+    private int length;
 
     InputBuffer(char[] buffer, int length) {
         super(buffer);
         this.length = length;
     }
 
+    void setInput(char[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
     public abstract int getLimit();
 
+    /**
+     * Restores chars dropped during the encoding, so that the same input could be encoded once again.
+     */
+    public void rewind() {
+        // nothing to restore by default
+    }
+
     public abstract void dropChar();
 
     public abstract void dropChars(int n);
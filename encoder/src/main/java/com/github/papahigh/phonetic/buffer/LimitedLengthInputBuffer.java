@@ -28,6 +28,37 @@ public class LimitedLengthInputBuffer extends InputBuffer {
         this.maxLength = maxLength;
     }
 
+    public LimitedLengthInputBuffer(char[] buffer, int offset, int bufferLength, int maxLength) {
+        super(buffer, bufferLength);
+        this.offset = offset;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Rebinds this buffer to the supplied input, so the same instance can be reused between encodings.
+     *
+     * @param buffer       chars to encode
+     * @param bufferLength number of valid chars in buffer
+     * @return this buffer
+     */
+    public LimitedLengthInputBuffer reset(char[] buffer, int bufferLength) {
+        setInput(buffer, 0, bufferLength);
+        return this;
+    }
+
+    /**
+     * Rebinds this buffer to a region of the supplied array, so the same instance can be reused between encodings.
+     *
+     * @param buffer       chars to encode
+     * @param offset       position of the first char to encode
+     * @param bufferLength number of chars to encode
+     * @return this buffer
+     */
+    public LimitedLengthInputBuffer reset(char[] buffer, int offset, int bufferLength) {
+        setInput(buffer, offset, bufferLength);
+        return this;
+    }
+
     @Override
     public void dropChar() {
         // do nothing
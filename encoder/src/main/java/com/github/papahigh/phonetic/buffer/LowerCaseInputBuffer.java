@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.buffer;
+
+
+/**
+ * Represents input buffer over a region of a CharSequence with fixed max-length limit.
+ * Letters are lowercased (regardless of the default locale) as they are read,
+ * so the source is neither lowercased nor copied beforehand.
+ * Backing array holds the lowercased region.
+ */
+public class LowerCaseInputBuffer extends CharSequenceInputBuffer {
+
+    public LowerCaseInputBuffer(CharSequence source, int maxLength) {
+        super(source, maxLength);
+    }
+
+    public LowerCaseInputBuffer(CharSequence source, int offset, int length, int maxLength) {
+        super(source, offset, length, maxLength);
+    }
+
+    @Override
+    public LowerCaseInputBuffer reset(CharSequence source) {
+        super.reset(source);
+        return this;
+    }
+
+    @Override
+    public LowerCaseInputBuffer reset(CharSequence source, int offset, int length) {
+        super.reset(source, offset, length);
+        return this;
+    }
+
+    @Override
+    public char charAt(int n) {
+        return toLowerCase(super.charAt(n));
+    }
+
+    /**
+     * Same as Character.toLowerCase(char) with fast paths for Russian letters.
+     */
+    public static char toLowerCase(char c) {
+        if (c >= 'а' && c <= 'я') {
+            return c;
+        }
+        if (c >= 'А' && c <= 'Я') {
+            return (char) (c + ('а' - 'А'));
+        }
+        return Character.toLowerCase(c);
+    }
+}
@@ -22,14 +22,36 @@ package com.github.papahigh.phonetic.buffer;
 public class StemmedInputBuffer extends InputBuffer {
 
     private int stemmedLength;
+    private int initialStemmedLength;
     private final int maxLength;
 
     public StemmedInputBuffer(char[] buffer, int bufferLength, int stemmedLength, int maxLength) {
         super(buffer, bufferLength);
         this.stemmedLength = stemmedLength;
+        this.initialStemmedLength = stemmedLength;
         this.maxLength = maxLength;
     }
 
+    /**
+     * Rebinds this buffer to the supplied input, so the same instance can be reused between encodings.
+     *
+     * @param buffer        chars to encode
+     * @param bufferLength  number of valid chars in buffer
+     * @param stemmedLength length of the stem in buffer
+     * @return this buffer
+     */
+    public StemmedInputBuffer reset(char[] buffer, int bufferLength, int stemmedLength) {
+        setInput(buffer, 0, bufferLength);
+        this.stemmedLength = stemmedLength;
+        this.initialStemmedLength = stemmedLength;
+        return this;
+    }
+
+    @Override
+    public void rewind() {
+        stemmedLength = initialStemmedLength;
+    }
+
     @Override
     public void dropChar() {
         stemmedLength = Math.max(stemmedLength - 1, 0);
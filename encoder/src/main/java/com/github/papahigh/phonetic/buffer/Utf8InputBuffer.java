@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Represents input buffer over UTF-8 encoded bytes with fixed max-length limit.
+ * Bytes are decoded into an internal array which is reused between encodings,
+ * letters are lowercased (regardless of the default locale) while they are decoded.
+ * Single and two-byte sequences (the latter cover all Cyrillic letters) are checked first.
+ * Input is decoded by the JDK decoder from the first malformed sequence on, so malformed input is replaced
+ * with U+FFFD chars exactly the same way as new String(bytes, UTF_8) replaces it.
+ */
+public class Utf8InputBuffer extends InputBuffer {
+
+    private final int maxLength;
+    private CharsetDecoder decoder;
+
+    public Utf8InputBuffer(int maxLength) {
+        super(new char[16], 0);
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Rebinds this buffer to a region of the supplied UTF-8 bytes, so the same instance can be reused between encodings.
+     *
+     * @param bytes  UTF-8 bytes to encode
+     * @param offset position of the first byte to encode
+     * @param length number of bytes to encode
+     * @return this buffer
+     */
+    public Utf8InputBuffer reset(byte[] bytes, int offset, int length) {
+        char[] chars = buffer;
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length << 1)];
+        }
+        setInput(chars, 0, decode(bytes, offset, offset + length, chars));
+        return this;
+    }
+
+    private int decode(byte[] bytes, int i, int end, char[] chars) {
+        int n = 0;
+        while (i < end) {
+            int b = bytes[i] & 0xff;
+            if (b < 0x80) {
+                chars[n++] = LowerCaseInputBuffer.toLowerCase((char) b);
+                i++;
+            } else if (b >= 0xc2 && b < 0xe0 && i + 1 < end && isContinuation(bytes[i + 1])) {
+                chars[n++] = LowerCaseInputBuffer.toLowerCase((char) ((b & 0x1f) << 6 | bytes[i + 1] & 0x3f));
+                i += 2;
+            } else if (b >= 0xe0 && b < 0xf0 && i + 2 < end
+                    && isContinuation(bytes[i + 1]) && isContinuation(bytes[i + 2])) {
+                int ch = (b & 0x0f) << 12 | (bytes[i + 1] & 0x3f) << 6 | bytes[i + 2] & 0x3f;
+                if (ch < 0x800 || Character.isSurrogate((char) ch)) {
+                    break;
+                }
+                chars[n++] = LowerCaseInputBuffer.toLowerCase((char) ch);
+                i += 3;
+            } else if (b >= 0xf0 && b < 0xf5 && i + 3 < end
+                    && isContinuation(bytes[i + 1]) && isContinuation(bytes[i + 2]) && isContinuation(bytes[i + 3])) {
+                int cp = (b & 0x07) << 18 | (bytes[i + 1] & 0x3f) << 12 | (bytes[i + 2] & 0x3f) << 6 | bytes[i + 3] & 0x3f;
+                if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT || cp > Character.MAX_CODE_POINT) {
+                    break;
+                }
+                chars[n++] = Character.highSurrogate(cp);
+                chars[n++] = Character.lowSurrogate(cp);
+                i += 4;
+            } else {
+                break;
+            }
+        }
+        return i < end ? decodeMalformed(bytes, i, end, chars, n) : n;
+    }
+
+    /**
+     * Decodes the rest of the input starting with a malformed sequence, every byte yields at most one char.
+     */
+    private int decodeMalformed(byte[] bytes, int i, int end, char[] chars, int n) {
+        if (decoder == null) {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        CharBuffer out = CharBuffer.wrap(chars, n, chars.length - n);
+        decoder.reset();
+        decoder.decode(ByteBuffer.wrap(bytes, i, end - i), out, true);
+        decoder.flush(out);
+        for (int j = n; j < out.position(); j++) {
+            chars[j] = LowerCaseInputBuffer.toLowerCase(chars[j]);
+        }
+        return out.position();
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xc0) == 0x80;
+    }
+
+    @Override
+    public void dropChar() {
+        // do nothing
+    }
+
+    @Override
+    public void dropChars(int n) {
+        // do nothing
+    }
+
+    @Override
+    public void dropChars2() {
+        // do nothing
+    }
+
+    @Override
+    public int getLimit() {
+        return maxLength;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.dictionary;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+
+/**
+ * Read-only dictionary of precomputed phonetic codes memory-mapped from a file created by CodeDictionaryWriter.
+ * Keys are lowercased words sorted in natural String order, so lookups are binary searches over the mapped file.
+ * <p>
+ * File layout (big-endian): magic, version, vowels mode ordinal, maximum code length, number of words,
+ * word offsets and code offsets (number of words + 1 ints each), word chars and code chars.
+ * <p>
+ * Dictionary should be closed once it's no longer used. Closing drops the references to the mapped file,
+ * which is then unmapped by the garbage collector: unmapping it eagerly would crash lookups still running
+ * on other threads.
+ * <p>
+ * This class is thread safe.
+ *
+ * @see CodeDictionaryWriter
+ * @see DictionaryEncoder
+ */
+public final class CodeDictionary implements Closeable {
+
+    static final int MAGIC = 0x52504344;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    private final VowelsMode vowelsMode;
+    private final int maximumLength;
+    private final int size;
+    private final Path path;
+
+    private volatile Mapping mapping;
+
+
+    private CodeDictionary(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(String.format(Locale.ROOT, "File [%s] is not a code dictionary", path));
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(String.format(Locale.ROOT, "Unsupported version [%d] of code dictionary [%s]", buffer.getInt(4), path));
+        }
+        int vowelsModeOrdinal = buffer.getInt(8);
+        if (vowelsModeOrdinal < 0 || vowelsModeOrdinal >= VowelsMode.values().length) {
+            throw new IOException(String.format(Locale.ROOT, "Illegal vowels mode [%d] of code dictionary [%s]", vowelsModeOrdinal, path));
+        }
+        this.vowelsMode = VowelsMode.values()[vowelsModeOrdinal];
+        this.maximumLength = buffer.getInt(12);
+        this.size = buffer.getInt(16);
+
+        long offsetsSize = (size + 1L) * Integer.BYTES;
+        if (size < 0 || HEADER_SIZE + 2 * offsetsSize > buffer.capacity()) {
+            throw new IOException(String.format(Locale.ROOT, "Code dictionary [%s] is truncated", path));
+        }
+        int position = HEADER_SIZE;
+        IntBuffer keyOffsets = slice(buffer, position, (int) offsetsSize).asIntBuffer();
+        position += (int) offsetsSize;
+        IntBuffer codeOffsets = slice(buffer, position, (int) offsetsSize).asIntBuffer();
+        position += (int) offsetsSize;
+
+        long keysSize = (long) keyOffsets.get(size) * Character.BYTES;
+        long codesSize = (long) codeOffsets.get(size) * Character.BYTES;
+        if (position + keysSize + codesSize != buffer.capacity()) {
+            throw new IOException(String.format(Locale.ROOT, "Code dictionary [%s] is truncated", path));
+        }
+        CharBuffer keys = slice(buffer, position, (int) keysSize).asCharBuffer();
+        position += (int) keysSize;
+        CharBuffer codes = slice(buffer, position, (int) codesSize).asCharBuffer();
+
+        this.path = path;
+        this.mapping = new Mapping(keyOffsets, codeOffsets, keys, codes);
+    }
+
+
+    /**
+     * Memory-maps code dictionary from the supplied file.
+     *
+     * @param path file created by CodeDictionaryWriter
+     * @return code dictionary backed by the file
+     * @throws IOException if the file can't be read or it isn't a code dictionary
+     */
+    public static CodeDictionary open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException(String.format(Locale.ROOT, "Code dictionary [%s] is too large", path));
+            }
+            return new CodeDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize), path);
+        }
+    }
+
+
+    /**
+     * Looks up precomputed code of the supplied lowercased word.
+     *
+     * @param word         lowercased word chars
+     * @param offset       position of the first word char
+     * @param length       number of word chars
+     * @param target       array receiving the code, must have room for maximum code length chars
+     * @param targetOffset position of the first code char in target
+     * @return length of the code written to target, or -1 if the word isn't in the dictionary
+     * @throws IllegalStateException if the dictionary is closed
+     */
+    public int lookup(char[] word, int offset, int length, char[] target, int targetOffset) {
+        Mapping mapping = this.mapping;
+        if (mapping == null) {
+            throw new IllegalStateException(String.format(Locale.ROOT, "Code dictionary [%s] is closed", path));
+        }
+        int index = mapping.indexOf(size, word, offset, length);
+        if (index < 0) {
+            return -1;
+        }
+        int codeStart = mapping.codeOffsets.get(index);
+        int codeLength = mapping.codeOffsets.get(index + 1) - codeStart;
+        for (int i = 0; i < codeLength; i++) {
+            target[targetOffset + i] = mapping.codes.get(codeStart + i);
+        }
+        return codeLength;
+    }
+
+
+    /**
+     * Releases the mapped file, subsequent lookups fail with IllegalStateException.
+     */
+    @Override
+    public void close() {
+        mapping = null;
+    }
+
+
+    /**
+     * Ensures that codes of this dictionary were produced with the supplied encoder configuration.
+     *
+     * @param encoder encoder used for words missing from this dictionary
+     * @throws IllegalArgumentException if encoder configuration differs from the dictionary one
+     */
+    public void ensureCompatible(PhoneticEncoder encoder) {
+        if (encoder.getVowelsMode() != vowelsMode || encoder.getMaximumLength() != maximumLength) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT,
+                    "Code dictionary was created with vowels mode [%s] and maximum code length [%d] " +
+                            "but encoder uses vowels mode [%s] and maximum code length [%d]",
+                    vowelsMode, maximumLength, encoder.getVowelsMode(), encoder.getMaximumLength()));
+        }
+    }
+
+    public VowelsMode getVowelsMode() {
+        return vowelsMode;
+    }
+
+    public int getMaximumLength() {
+        return maximumLength;
+    }
+
+    public int size() {
+        return size;
+    }
+
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position).limit(position + length);
+        return duplicate.slice();
+    }
+
+
+    private static final class Mapping {
+
+        private final IntBuffer keyOffsets;
+        private final IntBuffer codeOffsets;
+        private final CharBuffer keys;
+        private final CharBuffer codes;
+
+        Mapping(IntBuffer keyOffsets, IntBuffer codeOffsets, CharBuffer keys, CharBuffer codes) {
+            this.keyOffsets = keyOffsets;
+            this.codeOffsets = codeOffsets;
+            this.keys = keys;
+            this.codes = codes;
+        }
+
+        int indexOf(int size, char[] word, int offset, int length) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int cmp = compare(middle, word, offset, length);
+                if (cmp < 0) {
+                    low = middle + 1;
+                } else if (cmp > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        private int compare(int index, char[] word, int offset, int length) {
+            int keyStart = keyOffsets.get(index);
+            int keyLength = keyOffsets.get(index + 1) - keyStart;
+            int n = Math.min(keyLength, length);
+            for (int i = 0; i < n; i++) {
+                int diff = keys.get(keyStart + i) - word[offset + i];
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return keyLength - length;
+        }
+    }
+}
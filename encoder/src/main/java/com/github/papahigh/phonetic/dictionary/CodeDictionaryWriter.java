@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.dictionary;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Pre-encodes a word list into a code dictionary file using the supplied encoder configuration.
+ * Words are lowercased the same way the token filter lowercases terms (code point by code point).
+ *
+ * @see CodeDictionary
+ */
+public final class CodeDictionaryWriter {
+
+    private final PhoneticEncoder encoder;
+
+
+    public CodeDictionaryWriter(PhoneticEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+
+    /**
+     * Encodes the supplied words and writes them along with their codes into the file.
+     * Empty words and words which can't be encoded are skipped.
+     *
+     * @param words words to encode
+     * @param path  file to write the dictionary to
+     * @return number of distinct words written
+     * @throws IOException if the file can't be written
+     */
+    public int write(Collection<String> words, Path path) throws IOException {
+        PhonemeExchange exchange = encoder.newExchange();
+        LimitedLengthInputBuffer inputBuffer = new LimitedLengthInputBuffer(new char[0], 0, encoder.getMaximumLength());
+        char[] code = new char[encoder.getMaximumLength()];
+
+        Map<String, String> codes = new TreeMap<>();
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String key = lowerCase(word);
+            char[] chars = key.toCharArray();
+            try {
+                int codeLength = encoder.encode(inputBuffer.reset(chars, chars.length), exchange, code, 0);
+                codes.put(key, new String(code, 0, codeLength));
+            } catch (Exception ignore) {
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(CodeDictionary.MAGIC);
+            out.writeInt(CodeDictionary.VERSION);
+            out.writeInt(encoder.getVowelsMode().ordinal());
+            out.writeInt(encoder.getMaximumLength());
+            out.writeInt(codes.size());
+
+            int keyOffset = 0;
+            out.writeInt(keyOffset);
+            for (String key : codes.keySet()) {
+                out.writeInt(keyOffset += key.length());
+            }
+            int codeOffset = 0;
+            out.writeInt(codeOffset);
+            for (String value : codes.values()) {
+                out.writeInt(codeOffset += value.length());
+            }
+            for (String key : codes.keySet()) {
+                out.writeChars(key);
+            }
+            for (String value : codes.values()) {
+                out.writeChars(value);
+            }
+        }
+        return codes.size();
+    }
+
+
+    static String lowerCase(String word) {
+        StringBuilder result = new StringBuilder(word.length());
+        word.codePoints().map(Character::toLowerCase).forEach(result::appendCodePoint);
+        return result.toString();
+    }
+
+    /**
+     * Lowercases the word the same way as {@link #lowerCase(String)} without creating a String.
+     *
+     * @return number of chars written to target, or -1 if target has no room for them
+     */
+    static int lowerCase(CharSequence word, char[] target) {
+        int length = 0;
+        for (int i = 0; i < word.length(); ) {
+            int codePoint = Character.codePointAt(word, i);
+            i += Character.charCount(codePoint);
+            codePoint = Character.toLowerCase(codePoint);
+            if (length + Character.charCount(codePoint) > target.length) {
+                return -1;
+            }
+            length += Character.toChars(codePoint, target, length);
+        }
+        return length;
+    }
+}
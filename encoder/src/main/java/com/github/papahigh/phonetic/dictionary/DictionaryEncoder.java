@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.dictionary;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.buffer.LowerCaseInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import org.apache.commons.codec.EncoderException;
+import org.apache.commons.codec.StringEncoder;
+
+
+/**
+ * Encodes words by looking up their precomputed codes in the code dictionary
+ * and falls back to the encoding rules for words missing from it.
+ * <p>
+ * This class is thread safe, use {@link #newSingleThreadEncoder()} to encode many words
+ * on the same thread without allocating lookup buffers for every word.
+ *
+ * @see CodeDictionary
+ */
+public final class DictionaryEncoder implements StringEncoder {
+
+    private final CodeDictionary dictionary;
+    private final PhoneticEncoder encoder;
+
+
+    /**
+     * @param dictionary precomputed codes
+     * @param encoder    encoder for words missing from the dictionary
+     * @throws IllegalArgumentException if dictionary was created with another encoder configuration
+     */
+    public DictionaryEncoder(CodeDictionary dictionary, PhoneticEncoder encoder) {
+        dictionary.ensureCompatible(encoder);
+        this.dictionary = dictionary;
+        this.encoder = encoder;
+    }
+
+
+    @Override
+    public Object encode(Object source) throws EncoderException {
+        if (source instanceof String) {
+            return encode((String) source);
+        }
+        return encoder.encode(source);
+    }
+
+    @Override
+    public String encode(String source) {
+        if (source == null || source.length() == 0) {
+            return "";
+        }
+        char[] code = new char[dictionary.getMaximumLength()];
+        int codeLength = lookup(source, new char[source.length()], code);
+        if (codeLength < 0) {
+            return encoder.encode(source);
+        }
+        return new String(code, 0, codeLength);
+    }
+
+    /**
+     * Creates an encoder which reuses its lookup buffers and encoding context between calls.
+     * Returned encoder is NOT thread safe and should be confined to a single thread.
+     *
+     * @return encoder backed by the same dictionary and rules as this one
+     */
+    public StringEncoder newSingleThreadEncoder() {
+        return new SingleThreadEncoder();
+    }
+
+
+    private int lookup(String source, char[] word, char[] code) {
+        int length = CodeDictionaryWriter.lowerCase(source, word);
+        return length < 0 ? -1 : dictionary.lookup(word, 0, length, code, 0);
+    }
+
+
+    private final class SingleThreadEncoder implements StringEncoder {
+
+        private final PhonemeExchange exchange = encoder.newExchange();
+        private final LowerCaseInputBuffer inputBuffer = new LowerCaseInputBuffer("", encoder.getMaximumLength());
+        private final char[] code = new char[dictionary.getMaximumLength()];
+        private char[] word = new char[16];
+
+        @Override
+        public Object encode(Object source) throws EncoderException {
+            if (source instanceof String) {
+                return encode((String) source);
+            }
+            return DictionaryEncoder.this.encode(source);
+        }
+
+        @Override
+        public String encode(String source) {
+            if (source == null || source.length() == 0) {
+                return "";
+            }
+            if (word.length < source.length()) {
+                word = new char[Math.max(source.length(), word.length << 1)];
+            }
+            int codeLength = lookup(source, word, code);
+            if (codeLength < 0) {
+                codeLength = encoder.encode(inputBuffer.reset(source), exchange, code, 0);
+            }
+            return new String(code, 0, codeLength);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.phoneme;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+
+/**
+ * Table driven equivalent of a PhonemeRuler tree.
+ * <p>
+ * Nested next and after-next rulers are flattened into a single int transition table
+ * indexed by (state, letter), where positive entries point to the next state and negative
+ * entries to the action. Substitutions are stored as plain data and performed without
+ * dispatching to a rule, any other rule is kept as is and invoked directly.
+ * Output is identical to the source tree.
+ * <p>
+ * This class is thread safe.
+ *
+ * @see PhonemeRuler
+ * @see PhonemeSubstitution
+ */
+public final class CompiledPhonemeRule implements PhonemeRule {
+
+    private static final int ROOT = 0;
+    private static final int NO_RULE = 0;
+
+    private final char first;
+    private final int columns;
+    private final int[] transitions;
+    private final int[] lookahead;
+
+    private final char[][] encoded;
+    private final int[] drops;
+    private final int[] skips;
+    private final PhonemeRule[] opaqueRules;
+
+    private final Predicate<PhonemeExchange> rulePreHandler;
+    private final Consumer<PhonemeExchange> rulePostHandler;
+
+    private CompiledPhonemeRule(Compiler compiler) {
+        this.first = compiler.first;
+        this.columns = compiler.columns;
+        this.transitions = compiler.transitions.stream().mapToInt(Integer::intValue).toArray();
+        this.lookahead = compiler.lookahead.stream().mapToInt(Integer::intValue).toArray();
+        this.encoded = compiler.encoded.toArray(new char[0][]);
+        this.drops = compiler.drops.stream().mapToInt(Integer::intValue).toArray();
+        this.skips = compiler.skips.stream().mapToInt(Integer::intValue).toArray();
+        this.opaqueRules = compiler.opaqueRules.toArray(new PhonemeRule[0]);
+        this.rulePreHandler = compiler.root.getPreHandler();
+        this.rulePostHandler = compiler.root.getPostHandler();
+    }
+
+    /**
+     * Flattens the supplied rule tree into the transition table.
+     *
+     * @param rule root of the rule tree built with PhonemeRuler.currRule(...)
+     * @return compiled rule producing the same output as the supplied one
+     * @throws IllegalArgumentException if the supplied rule is not a current char ruler
+     */
+    public static CompiledPhonemeRule compile(PhonemeRule rule) {
+        if (!(rule instanceof PhonemeRuler) || ((PhonemeRuler) rule).getLookahead() != 0) {
+            throw new IllegalArgumentException("Only rules built with PhonemeRuler.currRule(...) can be compiled");
+        }
+        return new CompiledPhonemeRule(new Compiler((PhonemeRuler) rule));
+    }
+
+    /**
+     * Dispatches encoding context through the transition table.
+     *
+     * @param exchange encoding context
+     */
+    @Override
+    public void apply(PhonemeExchange exchange) {
+        if (rulePreHandler == null || rulePreHandler.test(exchange)) {
+            char curr = exchange.getCurr();
+            int entry = transition(ROOT, curr);
+            while (entry > 0) {
+                entry = transition(entry, exchange.getNext(lookahead[entry]));
+            }
+            if (entry < 0) {
+                perform(~entry, exchange);
+            }
+            if (exchange.isValid()) {
+                exchange.addEncoded(curr).flush();
+            }
+            if (rulePostHandler != null) {
+                rulePostHandler.accept(exchange);
+            }
+        }
+    }
+
+    private int transition(int state, char letter) {
+        int column = letter - first;
+        if (column >= 0 && column < columns) {
+            return transitions[state * columns + column];
+        }
+        return NO_RULE;
+    }
+
+    private void perform(int action, PhonemeExchange exchange) {
+        PhonemeRule rule = opaqueRules[action];
+        if (rule != null) {
+            rule.apply(exchange);
+        } else {
+            PhonemeSubstitution.apply(exchange, encoded[action], drops[action], skips[action]);
+        }
+    }
+
+
+    /**
+     * Walks the rule tree and assigns states and actions.
+     */
+    private static final class Compiler {
+
+        final PhonemeRuler root;
+        final char first;
+        final int columns;
+
+        final List<Integer> transitions = new ArrayList<>();
+        final List<Integer> lookahead = new ArrayList<>();
+
+        final List<char[]> encoded = new ArrayList<>();
+        final List<Integer> drops = new ArrayList<>();
+        final List<Integer> skips = new ArrayList<>();
+        final List<PhonemeRule> opaqueRules = new ArrayList<>();
+
+        Compiler(PhonemeRuler root) {
+            this.root = root;
+
+            int[] range = {Character.MAX_VALUE, Character.MIN_VALUE};
+            collectRange(root, range);
+            this.first = (char) range[0];
+            this.columns = Math.max(range[1] - range[0], 0);
+
+            List<PhonemeRuler> states = new ArrayList<>();
+            states.add(root);
+            // states are appended while compiling, so the list grows during the walk
+            for (int state = 0; state < states.size(); state++) {
+                PhonemeRuler ruler = states.get(state);
+                lookahead.add(ruler.getLookahead());
+                for (int column = 0; column < columns; column++) {
+                    transitions.add(compileEntry(ruler.getRule((char) (first + column)), states));
+                }
+            }
+        }
+
+        private int compileEntry(PhonemeRule rule, List<PhonemeRuler> states) {
+            if (rule == null) {
+                return NO_RULE;
+            }
+            if (isNested(rule)) {
+                states.add((PhonemeRuler) rule);
+                return states.size() - 1;
+            }
+            if (rule instanceof PhonemeSubstitution) {
+                PhonemeSubstitution substitution = (PhonemeSubstitution) rule;
+                encoded.add(substitution.getEncoded());
+                drops.add(substitution.getDrop());
+                skips.add(substitution.getSkip());
+                opaqueRules.add(null);
+            } else {
+                encoded.add(null);
+                drops.add(0);
+                skips.add(0);
+                opaqueRules.add(rule);
+            }
+            return ~(opaqueRules.size() - 1);
+        }
+
+        private static void collectRange(PhonemeRuler ruler, int[] range) {
+            range[0] = Math.min(range[0], ruler.getOffset());
+            range[1] = Math.max(range[1], ruler.getOffset() + ruler.getRulesCount());
+            for (int i = 0; i < ruler.getRulesCount(); i++) {
+                PhonemeRule rule = ruler.getRule((char) (ruler.getOffset() + i));
+                if (isNested(rule)) {
+                    collectRange((PhonemeRuler) rule, range);
+                }
+            }
+        }
+
+        private static boolean isNested(PhonemeRule rule) {
+            // rulers dispatching on the current char emit it on their own, so they are kept as actions
+            return rule instanceof PhonemeRuler && ((PhonemeRuler) rule).getLookahead() > 0;
+        }
+    }
+}
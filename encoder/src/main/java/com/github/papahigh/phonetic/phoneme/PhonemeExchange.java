@@ -17,6 +17,7 @@ package com.github.papahigh.phonetic.phoneme;
 
 
 import com.github.papahigh.phonetic.buffer.Buffer;
+import com.github.papahigh.phonetic.buffer.InputBuffer;
 
 
 /**
@@ -82,4 +83,47 @@ public interface PhonemeExchange {
 
     int getRemainingOriginalLength();
 
+    /**
+     * Registers an ambiguous rule site, i.e. a place where the word could be plausibly encoded in more than one way.
+     * Rules take the primary encoding unless the site is selected via setAlternatives(int).
+     *
+     * @return true if the alternative encoding should be taken at this site
+     */
+    boolean takeAlternative();
+
+    /**
+     * Selects ambiguous rule sites which take the alternative encoding,
+     * i-th bit of the mask stands for the i-th site registered since the last reset.
+     * Mask is cleared by reset, so it must be set after binding the input.
+     *
+     * @param mask selected sites
+     * @return this context
+     */
+    PhonemeExchange setAlternatives(int mask);
+
+    /**
+     * @return number of ambiguous rule sites registered since the last reset
+     */
+    int getAlternativeSites();
+
+    /**
+     * Binds this context to the supplied input and clears encoded output,
+     * so that the same context could be reused for the next encoding.
+     *
+     * @param input input buffer to encode
+     * @return this context
+     */
+    PhonemeExchange reset(InputBuffer input);
+
+    /**
+     * Binds this context to the supplied input and directs encoded output
+     * into the target array starting at offset.
+     *
+     * @param input  input buffer to encode
+     * @param target array receiving the encoded output, must fit input.getLimit() chars at offset
+     * @param offset position of the first encoded char in target
+     * @return this context
+     */
+    PhonemeExchange reset(InputBuffer input, char[] target, int offset);
+
 }
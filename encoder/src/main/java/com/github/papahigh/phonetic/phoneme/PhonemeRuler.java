@@ -41,6 +41,29 @@ public class PhonemeRuler implements PhonemeRule {
         this.rulePostHandler = rulePostHandler;
     }
 
+    int getOffset() {
+        return offset;
+    }
+
+    int getRulesCount() {
+        return rules.length;
+    }
+
+    /**
+     * @return position of the dispatching char relative to exchange.getCurr()
+     */
+    int getLookahead() {
+        return 0;
+    }
+
+    Predicate<PhonemeExchange> getPreHandler() {
+        return rulePreHandler;
+    }
+
+    Consumer<PhonemeExchange> getPostHandler() {
+        return rulePostHandler;
+    }
+
     PhonemeRule getRule(char letter) {
         int index = letter - offset;
         if (index >= 0 && index < rules.length) {
@@ -136,6 +159,11 @@ public class PhonemeRuler implements PhonemeRule {
             super(offset, rules, null, null);
         }
 
+        @Override
+        int getLookahead() {
+            return 1;
+        }
+
         @Override
         public void apply(PhonemeExchange exchange) {
             PhonemeRule next = getRule(exchange.getNext());
@@ -167,6 +195,11 @@ public class PhonemeRuler implements PhonemeRule {
             super(offset, rules, null, null);
         }
 
+        @Override
+        int getLookahead() {
+            return 2;
+        }
+
         @Override
         public void apply(PhonemeExchange exchange) {
             PhonemeRule afterNext = getRule(exchange.getNext(2));
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.phoneme;
+
+
+/**
+ * Encoding rule which appends encoded letters, drops the given number of chars
+ * and skips the given number of next chars in PhonemeExchange.
+ * <p>
+ * Unlike lambda rules, substitution exposes its parameters
+ * so that it can be flattened into the tables by CompiledPhonemeRule.
+ *
+ * @see CompiledPhonemeRule
+ */
+public final class PhonemeSubstitution implements PhonemeRule {
+
+    private final char[] encoded;
+    private final int drop;
+    private final int skip;
+
+    private PhonemeSubstitution(char[] encoded, int drop, int skip) {
+        this.encoded = encoded;
+        this.drop = drop;
+        this.skip = skip;
+    }
+
+    public static PhonemeSubstitution substitute(char encoded, int drop, int skip) {
+        return new PhonemeSubstitution(new char[]{encoded}, drop, skip);
+    }
+
+    public static PhonemeSubstitution substitute(char[] encoded, int drop, int skip) {
+        return new PhonemeSubstitution(encoded, drop, skip);
+    }
+
+    @Override
+    public void apply(PhonemeExchange exchange) {
+        apply(exchange, encoded, drop, skip);
+    }
+
+    static void apply(PhonemeExchange exchange, char[] encoded, int drop, int skip) {
+        if (encoded.length == 1) {
+            exchange.addEncoded(encoded[0]);
+        } else {
+            exchange.addEncoded(encoded);
+        }
+        if (drop > 0) {
+            exchange.drop(drop);
+        }
+        exchange.skipNext(skip).flush();
+    }
+
+    char[] getEncoded() {
+        return encoded;
+    }
+
+    int getDrop() {
+        return drop;
+    }
+
+    int getSkip() {
+        return skip;
+    }
+}
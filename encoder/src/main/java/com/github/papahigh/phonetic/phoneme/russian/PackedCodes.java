@@ -0,0 +1,262 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.phoneme.russian;
+
+import com.github.papahigh.phonetic.buffer.Buffer;
+
+import java.util.Locale;
+
+
+/**
+ * Packs Russian phonetic codes into 5-bit symbols.
+ * <p>
+ * Codes consist of consonants, first vowels and vowel group digits only, so every code char
+ * maps to a symbol from 1 to 29 and 0 is left for padding. Symbols are packed starting from
+ * the most significant bits, so packed codes keep the order of their text form.
+ */
+public final class PackedCodes {
+
+    public static final int BITS_PER_SYMBOL = 5;
+
+    /**
+     * Maximum length of the code which fits into a long value.
+     */
+    public static final int MAX_LONG_LENGTH = (Long.SIZE - 1) / BITS_PER_SYMBOL;
+
+    /**
+     * First char of every code packed into chars. It's a control char which tokenizers never emit, so packed codes
+     * never clash with the terms emitted as is (e.g. numbers or the original terms stacked with the codes),
+     * and it takes a single byte once the term is UTF-8 encoded.
+     */
+    public static final char CHARS_MARKER = '\u0001';
+
+    private static final int BITS_PER_CHAR = 6;
+    private static final char CHARS_BASE = '0';
+
+    private static final String ALPHABET = "123абвгджзйклмнпрстуфхцчшщэюя";
+    private static final byte[] SYMBOLS = new byte['я' + 1];
+    private static final int SYMBOL_MASK = (1 << BITS_PER_SYMBOL) - 1;
+
+    static {
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            SYMBOLS[ALPHABET.charAt(i)] = (byte) (i + 1);
+        }
+    }
+
+    private PackedCodes() {
+    }
+
+
+    /**
+     * @param code   code chars
+     * @param offset position of the first code char
+     * @param length length of the code, up to MAX_LONG_LENGTH
+     * @return non-negative long value holding packed code
+     * @throws IllegalArgumentException if the code is too long or contains unsupported chars
+     */
+    public static long pack(char[] code, int offset, int length) {
+        if (length > MAX_LONG_LENGTH) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Code of length [%d] doesn't fit into long value", length));
+        }
+        long packed = 0;
+        for (int i = 0; i < length; i++) {
+            packed |= (long) symbolOf(code[offset + i]) << (BITS_PER_SYMBOL * (MAX_LONG_LENGTH - 1 - i));
+        }
+        return packed;
+    }
+
+    /**
+     * @param code buffer holding the code, e.g. returned by PhoneticEncoder
+     * @return non-negative long value holding packed code
+     * @throws IllegalArgumentException if the code is too long or contains unsupported chars
+     */
+    public static long pack(Buffer code) {
+        return pack(code.getBuffer(), code.getOffset(), code.getLength());
+    }
+
+    /**
+     * @param packed long value holding packed code
+     * @return text form of the code
+     */
+    public static String unpack(long packed) {
+        StringBuilder code = new StringBuilder(MAX_LONG_LENGTH);
+        for (int i = MAX_LONG_LENGTH - 1; i >= 0; i--) {
+            int symbol = (int) (packed >>> (BITS_PER_SYMBOL * i)) & SYMBOL_MASK;
+            if (symbol == 0) {
+                break;
+            }
+            code.append(charOf(symbol));
+        }
+        return code.toString();
+    }
+
+
+    /**
+     * Packs the code into bytes, 8 bits per byte.
+     *
+     * @param code         code chars
+     * @param offset       position of the first code char
+     * @param length       length of the code
+     * @param target       array receiving packed code, must have room for bytesLength(length) bytes
+     * @param targetOffset position of the first packed byte in target
+     * @return number of bytes written to target
+     * @throws IllegalArgumentException if the code contains unsupported chars
+     */
+    public static int packBytes(char[] code, int offset, int length, byte[] target, int targetOffset) {
+        int position = targetOffset;
+        int bits = 0;
+        int pending = 0;
+        for (int i = 0; i < length; i++) {
+            pending = (pending << BITS_PER_SYMBOL) | symbolOf(code[offset + i]);
+            bits += BITS_PER_SYMBOL;
+            if (bits >= Byte.SIZE) {
+                bits -= Byte.SIZE;
+                target[position++] = (byte) (pending >>> bits);
+                pending &= (1 << bits) - 1;
+            }
+        }
+        if (bits > 0) {
+            target[position++] = (byte) (pending << (Byte.SIZE - bits));
+        }
+        return position - targetOffset;
+    }
+
+    /**
+     * @param packed packed code bytes
+     * @param offset position of the first packed byte
+     * @param length number of packed bytes
+     * @return text form of the code
+     */
+    public static String unpackBytes(byte[] packed, int offset, int length) {
+        StringBuilder code = new StringBuilder(length * Byte.SIZE / BITS_PER_SYMBOL);
+        int bits = 0;
+        int pending = 0;
+        for (int i = 0; i < length; i++) {
+            pending = (pending << Byte.SIZE) | (packed[offset + i] & 0xff);
+            bits += Byte.SIZE;
+            while (bits >= BITS_PER_SYMBOL) {
+                bits -= BITS_PER_SYMBOL;
+                int symbol = (pending >>> bits) & SYMBOL_MASK;
+                if (symbol == 0) {
+                    return code.toString();
+                }
+                code.append(charOf(symbol));
+            }
+            pending &= (1 << bits) - 1;
+        }
+        return code.toString();
+    }
+
+    /**
+     * Packs the code into the marker char followed by printable ASCII chars (6 bits each, starting with '0'),
+     * which take a single byte each once the term is UTF-8 encoded. Codes packed into chars keep the order
+     * of their text form. Since the marker is written last, target may be the code array as long as
+     * targetOffset doesn't exceed offset.
+     *
+     * @param code         code chars
+     * @param offset       position of the first code char
+     * @param length       length of the code
+     * @param target       array receiving packed code, must have room for charsLength(length) chars
+     * @param targetOffset position of the marker char in target
+     * @return number of chars written to target
+     * @throws IllegalArgumentException if the code contains unsupported chars
+     */
+    public static int packChars(char[] code, int offset, int length, char[] target, int targetOffset) {
+        int position = targetOffset + 1;
+        int bits = 0;
+        int pending = 0;
+        for (int i = 0; i < length; i++) {
+            pending = (pending << BITS_PER_SYMBOL) | symbolOf(code[offset + i]);
+            bits += BITS_PER_SYMBOL;
+            if (bits >= BITS_PER_CHAR) {
+                bits -= BITS_PER_CHAR;
+                target[position++] = (char) (CHARS_BASE + (pending >>> bits));
+                pending &= (1 << bits) - 1;
+            }
+        }
+        if (bits > 0) {
+            target[position++] = (char) (CHARS_BASE + (pending << (BITS_PER_CHAR - bits)));
+        }
+        target[targetOffset] = CHARS_MARKER;
+        return position - targetOffset;
+    }
+
+    /**
+     * @param packed packed code chars starting with the marker
+     * @param offset position of the marker char
+     * @param length number of packed chars
+     * @return text form of the code
+     * @throws IllegalArgumentException if the chars are not a packed code
+     */
+    public static String unpackChars(char[] packed, int offset, int length) {
+        if (length == 0 || packed[offset] != CHARS_MARKER) {
+            throw new IllegalArgumentException("Chars are not a packed code");
+        }
+        StringBuilder code = new StringBuilder(length * BITS_PER_CHAR / BITS_PER_SYMBOL);
+        int bits = 0;
+        int pending = 0;
+        for (int i = 1; i < length; i++) {
+            int value = packed[offset + i] - CHARS_BASE;
+            if (value < 0 || value >= 1 << BITS_PER_CHAR) {
+                throw new IllegalArgumentException(String.format(Locale.ROOT, "Unsupported packed char [%c]", packed[offset + i]));
+            }
+            pending = (pending << BITS_PER_CHAR) | value;
+            bits += BITS_PER_CHAR;
+            while (bits >= BITS_PER_SYMBOL) {
+                bits -= BITS_PER_SYMBOL;
+                int symbol = (pending >>> bits) & SYMBOL_MASK;
+                if (symbol == 0) {
+                    return code.toString();
+                }
+                code.append(charOf(symbol));
+            }
+            pending &= (1 << bits) - 1;
+        }
+        return code.toString();
+    }
+
+    /**
+     * @param length length of the code
+     * @return number of bytes taken by packed code
+     */
+    public static int bytesLength(int length) {
+        return (length * BITS_PER_SYMBOL + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * @param length length of the code
+     * @return number of chars taken by packed code along with the marker
+     */
+    public static int charsLength(int length) {
+        return 1 + (length * BITS_PER_SYMBOL + BITS_PER_CHAR - 1) / BITS_PER_CHAR;
+    }
+
+
+    private static int symbolOf(char c) {
+        int symbol = c < SYMBOLS.length ? SYMBOLS[c] : 0;
+        if (symbol == 0) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Unsupported code char [%c]", c));
+        }
+        return symbol;
+    }
+
+    private static char charOf(int symbol) {
+        if (symbol > ALPHABET.length()) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Unsupported code symbol [%d]", symbol));
+        }
+        return ALPHABET.charAt(symbol - 1);
+    }
+}
@@ -20,58 +20,114 @@ package com.github.papahigh.phonetic.phoneme.russian;
  * Represents dictionary of modern Russian alphabet lowercase letters
  * in rage from letter 'а' to 'я'
  * and provides fast access to the bits associated with a letter.
+ * <p>
+ * Bits are kept in a table indexed by any char, so the lookup is a single load:
+ * the JIT knows both the length of the table and the range of a char, so no bounds check is emitted either.
+ * All the other chars (including uppercase letters which are lowercased by input buffers) have no bits.
+ * The class is public for the lookup to be measured on its own, the bits layout stays package private.
  */
-final class RussianAlphaBits {
+public final class RussianAlphaBits {
 
     private RussianAlphaBits() {
     }
 
-    private static final int[] ABC = new int['ё' - 'а' + 1];
-    private static final char offset = 'а';
+    /**
+     * Bits of the chars which are neither letters nor signs.
+     */
+    static final int NONE = 0x0;
+
+    // consonant bits
+    static final int SIZZLE = 0x1;
+    static final int SOUND_PAIRED = 0x2;
+    static final int UNVOICED = 0x4;
+    static final int VOICED = 0x8;
+    static final int DOMINANT = 0x10;
+
+    // vowel bits: hardness, group [1], [2] or [3] of the vowel, VOW1 and VOW2 kinds
+    static final int SOFTER = 0x80;
+    static final int HARDER = 0x100;
+    static final int GROUP_2 = 0x200;
+    static final int GROUP_1 = 0x400;
+    static final int VOW2 = 0x800;
+    static final int VOW1 = 0x1000;
+    /**
+     * Sets Я (iotated А) apart from Ё which is in the same group.
+     */
+    static final int IOTATED_A = 0x2000;
+    static final int GROUP_3 = 0x4000;
+
+    /**
+     * Bit of every letter which is encoded.
+     */
+    static final int ALPHA = 0x8000;
+    /**
+     * Letters with bits above this value are encoded, the rest are dropped.
+     */
+    static final int LETTER = ALPHA - 1;
+    /**
+     * Letters with bits above this value are vowels.
+     */
+    static final int VOWEL = ALPHA | (HARDER - 1);
+
+    // bits of the letters the rules refer to
+    static final int VOWEL_U = ALPHA | GROUP_3 | HARDER;
+    static final int VOWEL_YU = ALPHA | GROUP_3 | SOFTER;
+    static final int VOWEL_YA = ALPHA | IOTATED_A | GROUP_1 | SOFTER;
+    static final int VOWEL_E = ALPHA | VOW1 | GROUP_2 | HARDER;
+    static final int VOWEL_IE = ALPHA | VOW1 | GROUP_2 | SOFTER;
+    static final int VOWEL_AO = ALPHA | VOW2 | GROUP_1 | HARDER;
+    static final int VOWEL_YO = ALPHA | GROUP_1 | SOFTER;
+    static final int VOWEL_Y = ALPHA | GROUP_2 | HARDER;
+    static final int UNVOICED_SIZZLE = ALPHA | DOMINANT | UNVOICED | SIZZLE;
+    /**
+     * Bits of soft and hard signs, these are not encoded but affect the neighbours.
+     */
+    static final int SIGN = 0x40;
+
+    private static final char[] ABC = new char[Character.MAX_VALUE + 1];
 
     static {
 
-        ABC['у' - offset] = 0xc100; // [3] | HARDER(У)
-        ABC['ю' - offset] = 0xc080; // [3] | SOFTER(Ю)
-        ABC['я' - offset] = 0xa480; // [1] | SOFTER(Я)
-        ABC['э' - offset] = 0x9300; // VOW1 | [2] | HARDER(ы,э)
-        ABC['и' - offset] = 0x9280; // VOW1 | [2] | SOFTER(и,е)
-        ABC['е' - offset] = 0x9280; // VOW1 | [2] | SOFTER(и,е)
-        ABC['а' - offset] = 0x8d00; // VOW2 | [1] | HARDER(а,о)
-        ABC['о' - offset] = 0x8d00; // VOW2 | [1] | HARDER(а,о)
-        ABC['ё' - offset] = 0x8480; // [1] | SOFTER(ё)
-        ABC['ы' - offset] = 0x8300; // [2] | HARDER(ы,э)
-        ABC['б' - offset] = 0x801a; // DOMINANT | VOICED | SOUND_PAIRED;  
-        ABC['г' - offset] = 0x801a; // DOMINANT | VOICED | SOUND_PAIRED;
-        ABC['д' - offset] = 0x801a; // DOMINANT | VOICED | SOUND_PAIRED;
-        ABC['з' - offset] = 0x801a; // DOMINANT | VOICED | SOUND_PAIRED;
-        ABC['ж' - offset] = 0x8019; // DOMINANT | VOICED | SIZZLE;
-        ABC['п' - offset] = 0x8016; // DOMINANT | UNVOICED | SOUND_PAIRED;
-        ABC['к' - offset] = 0x8016; // DOMINANT | UNVOICED | SOUND_PAIRED;
-        ABC['т' - offset] = 0x8016; // DOMINANT | UNVOICED | SOUND_PAIRED;
-        ABC['с' - offset] = 0x8016; // DOMINANT | UNVOICED | SOUND_PAIRED;
-        ABC['ф' - offset] = 0x8016; // DOMINANT | UNVOICED | SOUND_PAIRED;
-        ABC['х' - offset] = 0x8016; // DOMINANT | UNVOICED | SOUND_PAIRED;
-        ABC['ц' - offset] = 0x8015; // DOMINANT | UNVOICED | SIZZLE;
-        ABC['ч' - offset] = 0x8015; // DOMINANT | UNVOICED | SIZZLE;
-        ABC['ш' - offset] = 0x8015; // DOMINANT | UNVOICED | SIZZLE;
-        ABC['щ' - offset] = 0x8015; // DOMINANT | UNVOICED | SIZZLE;
-        ABC['в' - offset] = 0x800a; // VOICED | SOUND_PAIRED
-        ABC['м' - offset] = 0x8002; // SOUND_PAIRED
-        ABC['н' - offset] = 0x8002; // SOUND_PAIRED
-        ABC['л' - offset] = 0x8002; // SOUND_PAIRED
-        ABC['р' - offset] = 0x8002; // SOUND_PAIRED
-        ABC['й' - offset] = 0x8000;
-        ABC['ь' - offset] = 0x40;
-        ABC['ъ' - offset] = 0x40;
+        ABC['у'] = VOWEL_U;
+        ABC['ю'] = VOWEL_YU;
+        ABC['я'] = VOWEL_YA;
+        ABC['э'] = VOWEL_E;
+        ABC['и'] = VOWEL_IE;
+        ABC['е'] = VOWEL_IE;
+        ABC['а'] = VOWEL_AO;
+        ABC['о'] = VOWEL_AO;
+        ABC['ё'] = VOWEL_YO;
+        ABC['ы'] = VOWEL_Y;
+        ABC['б'] = ALPHA | DOMINANT | VOICED | SOUND_PAIRED;
+        ABC['г'] = ALPHA | DOMINANT | VOICED | SOUND_PAIRED;
+        ABC['д'] = ALPHA | DOMINANT | VOICED | SOUND_PAIRED;
+        ABC['з'] = ALPHA | DOMINANT | VOICED | SOUND_PAIRED;
+        ABC['ж'] = ALPHA | DOMINANT | VOICED | SIZZLE;
+        ABC['п'] = ALPHA | DOMINANT | UNVOICED | SOUND_PAIRED;
+        ABC['к'] = ALPHA | DOMINANT | UNVOICED | SOUND_PAIRED;
+        ABC['т'] = ALPHA | DOMINANT | UNVOICED | SOUND_PAIRED;
+        ABC['с'] = ALPHA | DOMINANT | UNVOICED | SOUND_PAIRED;
+        ABC['ф'] = ALPHA | DOMINANT | UNVOICED | SOUND_PAIRED;
+        ABC['х'] = ALPHA | DOMINANT | UNVOICED | SOUND_PAIRED;
+        ABC['ц'] = UNVOICED_SIZZLE;
+        ABC['ч'] = UNVOICED_SIZZLE;
+        ABC['ш'] = UNVOICED_SIZZLE;
+        ABC['щ'] = UNVOICED_SIZZLE;
+        ABC['в'] = ALPHA | VOICED | SOUND_PAIRED;
+        ABC['м'] = ALPHA | SOUND_PAIRED;
+        ABC['н'] = ALPHA | SOUND_PAIRED;
+        ABC['л'] = ALPHA | SOUND_PAIRED;
+        ABC['р'] = ALPHA | SOUND_PAIRED;
+        ABC['й'] = ALPHA;
+        ABC['ь'] = SIGN;
+        ABC['ъ'] = SIGN;
     }
 
-    static int bitsForChar(char c) {
-        int bits = 0x0;
-        int i = c - offset;
-        if (i >= 0 && i < ABC.length) {
-            bits = ABC[i];
-        }
-        return bits;
+    /**
+     * @param c any char
+     * @return bits associated with the char or 0x0 if the char is not a lowercase Russian letter
+     */
+    public static int bitsForChar(char c) {
+        return ABC[c];
     }
 }
@@ -22,12 +22,16 @@ import com.github.papahigh.phonetic.buffer.InputBuffer;
 import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
 import com.github.papahigh.phonetic.phoneme.PhonemeExchangeFactory;
 
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.LETTER;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.NONE;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL;
 import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.bitsForChar;
 
 
 /**
  * Holds the encoding context.
  * This class is not thread safe and is instantiated by PhonemeExchangeFactory on demand.
+ * Single instance can be reused for the sequential encodings via reset(InputBuffer).
  *
  * @see PhonemeExchangeFactory
  */
@@ -35,27 +39,60 @@ public final class RussianPhonemeExchange implements PhonemeExchange {
 
     public static final PhonemeExchangeFactory FACTORY = RussianPhonemeExchange::new;
 
-    private final InputBuffer inputBuffer;
+    private InputBuffer inputBuffer;
     private final AppendableBuffer outputBuffer;
-    private final VowelsMode vowelsMode;
+    // vowels are encoded only at positions below this bound
+    private final int vowelsIndexBound;
 
     private char curr;
     private int bits;
     private int index;
 
+    // look-ahead window of the chars around windowIndex and their bits, slid along with the index
+    private int windowIndex;
+    private char prev, at, next, next2;
+    private int prevBits, atBits, nextBits, next2Bits;
+
+    // ambiguous rule sites taking the alternative encoding and number of sites met so far
+    private int alternatives;
+    private int alternativeSites;
+
     private RussianPhonemeExchange(InputBuffer inputBuffer, VowelsMode vowelsMode) {
         this.inputBuffer = inputBuffer;
-        this.vowelsMode = vowelsMode;
+        this.windowIndex = Integer.MIN_VALUE;
+        this.vowelsIndexBound = vowelsIndexBound(vowelsMode);
         this.outputBuffer = new AppendableBuffer(inputBuffer.getLimit());
     }
 
+    @Override
+    public PhonemeExchange reset(InputBuffer inputBuffer) {
+        this.outputBuffer.reset(inputBuffer.getLimit());
+        return rebind(inputBuffer);
+    }
+
+    @Override
+    public PhonemeExchange reset(InputBuffer inputBuffer, char[] target, int offset) {
+        this.outputBuffer.reset(target, offset, inputBuffer.getLimit());
+        return rebind(inputBuffer);
+    }
+
+    private PhonemeExchange rebind(InputBuffer inputBuffer) {
+        this.inputBuffer = inputBuffer;
+        this.curr = 0;
+        this.bits = NONE;
+        this.index = 0;
+        this.windowIndex = Integer.MIN_VALUE;
+        this.alternatives = 0;
+        this.alternativeSites = 0;
+        return this;
+    }
+
     @Override
     public void pickUpCurr() {
         for (; index < inputBuffer.getLength(); index++) {
-            char current = inputBuffer.charAt(index);
-            if ((index == 0 || current != inputBuffer.charAt(index + 1))
-                    && (bits = bitsForChar(current)) > 0x7fff) {
-                this.curr = current;
+            slideWindow();
+            if ((index == 0 || at != next) && (bits = atBits) > LETTER) {
+                this.curr = at;
                 break;
             } else {
                 drop();
@@ -132,7 +169,7 @@ public final class RussianPhonemeExchange implements PhonemeExchange {
 
     @Override
     public int getBits() {
-        if (bits == 0x0) {
+        if (bits == NONE) {
             bits = bitsForChar(getCurr());
         }
         return bits;
@@ -150,29 +187,17 @@ public final class RussianPhonemeExchange implements PhonemeExchange {
 
     @Override
     public boolean isValid() {
-        return bits > 0x7fff;
+        return bits > LETTER;
     }
 
     @Override
     public boolean isConsonant() {
-        return getBits() < 0x80ff;
+        return getBits() < VOWEL;
     }
 
     @Override
     public boolean canEncodeVowel() {
-        boolean enabled;
-        switch (vowelsMode) {
-            case ENCODE_ALL:
-                enabled = true;
-                break;
-            case ENCODE_FIRST:
-                enabled = index == 0;
-                break;
-            case IGNORE:
-            default:
-                enabled = false;
-        }
-        return enabled;
+        return index < vowelsIndexBound;
     }
 
     @Override
@@ -185,14 +210,33 @@ public final class RussianPhonemeExchange implements PhonemeExchange {
         return inputBuffer.getLength() - (index + 1);
     }
 
+    @Override
+    public boolean takeAlternative() {
+        int site = alternativeSites++;
+        return site < Integer.SIZE && (alternatives & 1 << site) != 0;
+    }
+
+    @Override
+    public PhonemeExchange setAlternatives(int mask) {
+        this.alternatives = mask;
+        return this;
+    }
+
+    @Override
+    public int getAlternativeSites() {
+        return alternativeSites;
+    }
+
     @Override
     public char getPrev() {
-        return inputBuffer.charAt(index - 1);
+        slideWindow();
+        return prev;
     }
 
     @Override
     public int getPrevBits() {
-        return bitsForChar(getPrev());
+        slideWindow();
+        return prevBits;
     }
 
     @Override
@@ -202,28 +246,66 @@ public final class RussianPhonemeExchange implements PhonemeExchange {
 
     @Override
     public char getNext(int n) {
+        if (n == 2) {
+            slideWindow();
+            return next2;
+        }
         return inputBuffer.charAt(index + n);
     }
 
     @Override
     public char getNext() {
-        return inputBuffer.charAt(index + 1);
+        slideWindow();
+        return next;
     }
 
     @Override
     public int getNextBits() {
-        return bitsForChar(getNext());
+        slideWindow();
+        return nextBits;
     }
 
     @Override
     public int getNextBits(int i) {
+        if (i == 2) {
+            slideWindow();
+            return next2Bits;
+        }
         return bitsForChar(getNext(i));
     }
 
     @Override
     public void flush() {
         curr = 0;
-        bits = 0x0;
+        bits = NONE;
+    }
+
+    /**
+     * Moves the window to the current index, a single char is read when the index moved by one since the last call.
+     * Input chars don't change during the encoding (dropped chars only lower the limit), so the window stays valid.
+     */
+    private void slideWindow() {
+        if (windowIndex == index) {
+            return;
+        }
+        if (windowIndex == index - 1) {
+            prev = at;
+            prevBits = atBits;
+            at = next;
+            atBits = nextBits;
+            next = next2;
+            nextBits = next2Bits;
+        } else {
+            prev = inputBuffer.charAt(index - 1);
+            prevBits = bitsForChar(prev);
+            at = inputBuffer.charAt(index);
+            atBits = bitsForChar(at);
+            next = inputBuffer.charAt(index + 1);
+            nextBits = bitsForChar(next);
+        }
+        next2 = inputBuffer.charAt(index + 2);
+        next2Bits = bitsForChar(next2);
+        windowIndex = index;
     }
 
     @Override
@@ -231,8 +313,24 @@ public final class RussianPhonemeExchange implements PhonemeExchange {
         return outputBuffer;
     }
 
+    private static int vowelsIndexBound(VowelsMode vowelsMode) {
+        int bound;
+        switch (vowelsMode) {
+            case ENCODE_ALL:
+                bound = Integer.MAX_VALUE;
+                break;
+            case ENCODE_FIRST:
+                bound = 1;
+                break;
+            case IGNORE:
+            default:
+                bound = 0;
+        }
+        return bound;
+    }
+
     @Override
     public String toString() {
-        return new String(outputBuffer.getBuffer(), 0, Math.min(inputBuffer.getLimit(), outputBuffer.getLength()));
+        return outputBuffer.toString();
     }
 }
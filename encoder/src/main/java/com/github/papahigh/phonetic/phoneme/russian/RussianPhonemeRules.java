@@ -15,6 +15,7 @@
  */
 package com.github.papahigh.phonetic.phoneme.russian;
 
+import com.github.papahigh.phonetic.phoneme.CompiledPhonemeRule;
 import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
 import com.github.papahigh.phonetic.phoneme.PhonemeRule;
 import com.github.papahigh.phonetic.phoneme.PhonemeRuler;
@@ -22,6 +23,26 @@ import com.github.papahigh.phonetic.phoneme.PhonemeRuler;
 import static com.github.papahigh.phonetic.phoneme.PhonemeRuler.afterNextRule;
 import static com.github.papahigh.phonetic.phoneme.PhonemeRuler.currRule;
 import static com.github.papahigh.phonetic.phoneme.PhonemeRuler.nextRule;
+import static com.github.papahigh.phonetic.phoneme.PhonemeSubstitution.substitute;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.DOMINANT;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.GROUP_1;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.NONE;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.SIGN;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.SIZZLE;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.SOUND_PAIRED;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.UNVOICED;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.UNVOICED_SIZZLE;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOICED;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOW1;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOW2;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL_AO;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL_IE;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL_U;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL_Y;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL_YA;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL_YO;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.VOWEL_YU;
 import static com.github.papahigh.phonetic.phoneme.russian.RussianAlphaBits.bitsForChar;
 
 
@@ -82,11 +103,11 @@ public final class RussianPhonemeRules {
         int nextBits = e.getNextBits();
 
         char vowelGroup = 0;
-        if (nextBits > 0x80ff && (vowelBits == 0x9280 || vowelBits == 0x8300)) {
-            // if first-in-word
-            if (e.isFirst()) {
+        if (nextBits > VOWEL && (vowelBits == VOWEL_IE || vowelBits == VOWEL_Y)) {
+            // if first-in-word (alternatively the first vowel is encoded as if there was no iotation)
+            if (e.isFirst() && !e.takeAlternative()) {
                 char vowel;
-                if (nextBits > 0xc07f) {
+                if (nextBits >= VOWEL_YU) {
                     vowelGroup = 'ю';
                 } else if ((vowel = e.getNext()) == 'а') {
                     vowelGroup = 'я';
@@ -95,10 +116,14 @@ public final class RussianPhonemeRules {
                 }
             }
             if (vowelGroup == 0) {
-                vowelGroup = encodeVowel(e.isFirst() ? 0x0 : vowelBits, nextBits, e.getNextBits(2), e);
+                vowelGroup = encodeVowel(e.isFirst() ? NONE : vowelBits, nextBits, e.getNextBits(2), e);
             }
             e.drop().skipNext();
         } else {
+            if (vowelBits == VOWEL_YO && e.getPrevBits() >= SIGN && e.takeAlternative()) {
+                // Ё is often written as Е
+                vowelBits = VOWEL_IE;
+            }
             vowelGroup = encodeVowel(e.getPrevBits(), vowelBits, nextBits, e);
         }
 
@@ -112,15 +137,17 @@ public final class RussianPhonemeRules {
     public static final PhonemeRule CONSONANTS = consonantRule()
 
             .preHandler(exchange -> {
-                        if (exchange.getRemainingOriginalLength() < 2 && (exchange.getBits() & 0x8) == 0x8
-                                && (exchange.getNextBits() < 0x3f || (exchange.getNextBits() & 0x0058) > 0x17)) {
-                            // voicing at the end of word
+                        if (exchange.getRemainingOriginalLength() < 2 && (exchange.getBits() & VOICED) == VOICED
+                                && (exchange.getNextBits() < SIGN
+                                || (exchange.getNextBits() & (SIGN | DOMINANT | VOICED)) >= (DOMINANT | VOICED))
+                                && !exchange.takeAlternative()) {
+                            // voicing at the end of word (alternatively the consonant is encoded as it is written)
                             int nextBits = exchange.getNextBits();
-                            if (nextBits == 0x40 && (exchange.getPrevBits() & 0x8) == 0x8) {
+                            if (nextBits == SIGN && (exchange.getPrevBits() & VOICED) == VOICED) {
                                 exchange.updateEncoded(getPair(exchange.getPrev()));
                             }
                             exchange.addEncoded(getPair(exchange.getCurr()));
-                            if ((nextBits & 0x8) == 0x8) {
+                            if ((nextBits & VOICED) == VOICED) {
                                 exchange.addEncoded(getPair(exchange.getNext())).skipNext();
                             }
                             exchange.flush();
@@ -130,18 +157,18 @@ public final class RussianPhonemeRules {
                     }
 
             ).on('с', nextConsonantRule()
-                    .on('щ', e -> e.addEncoded('щ').drop().skipNext().flush()) // СЩ → Щ
-                    .on('ш', e -> e.addEncoded('ш').drop().skipNext().flush()) // СШ → Ш
-                    .on('з', e -> e.addEncoded('з').drop().skipNext().flush()) // СЗ → З
-                    .on('ж', e -> e.addEncoded('ж').drop().skipNext().flush()) // СЖ → Ж
-                    .on('ч', e -> e.addEncoded('щ').drop().skipNext().flush()) // СЧ → Щ
+                    .on('щ', substitute('щ', 1, 1)) // СЩ → Щ
+                    .on('ш', substitute('ш', 1, 1)) // СШ → Ш
+                    .on('з', substitute('з', 1, 1)) // СЗ → З
+                    .on('ж', substitute('ж', 1, 1)) // СЖ → Ж
+                    .on('ч', substitute('щ', 1, 1)) // СЧ → Щ
                     .on('т', afterNextConsonantRule()
-                            .on('ч', e -> e.addEncoded('щ').drop2().skipNext2().flush()) // СТЧ → Щ
-                            .on('г', e -> e.addEncoded(Zg).drop().skipNext2().flush()) // СТГ → ЗГ
-                            .on('к', e -> e.addEncoded(Sk).drop().skipNext2().flush()) // СТК → СК
-                            .on('л', e -> e.addEncoded(Sl).drop().skipNext2().flush()) // СТЛ → СЛ
-                            .on('н', e -> e.addEncoded(Sn).drop().skipNext2().flush()) // СТН → СН
-                            .on('ц', e -> e.addEncoded(Sts).drop().skipNext2().flush()) // СТЦ → СЦ
+                            .on('ч', substitute('щ', 2, 2)) // СТЧ → Щ
+                            .on('г', substitute(Zg, 1, 2)) // СТГ → ЗГ
+                            .on('к', substitute(Sk, 1, 2)) // СТК → СК
+                            .on('л', substitute(Sl, 1, 2)) // СТЛ → СЛ
+                            .on('н', substitute(Sn, 1, 2)) // СТН → СН
+                            .on('ц', substitute(Sts, 1, 2)) // СТЦ → СЦ
                             .on('с', e -> {
                                         if (e.getNext(3) == 'к') {
                                             e.addEncoded(Sk).drop2().skipNext(3).flush(); // СТСК → СК
@@ -151,12 +178,12 @@ public final class RussianPhonemeRules {
                             ).build()
                     )
                     .on('д', afterNextConsonantRule()
-                            .on('ч', e -> e.addEncoded('щ').drop2().skipNext2().flush()) // СДЧ → Щ
-                            .on('г', e -> e.addEncoded(Zg).drop().skipNext2().flush()) // СДГ → ЗГ
-                            .on('к', e -> e.addEncoded(Sk).drop().skipNext2().flush()) // СДК → СК
-                            .on('л', e -> e.addEncoded(Sl).drop().skipNext2().flush()) // СДЛ → СЛ
-                            .on('н', e -> e.addEncoded(Sn).drop().skipNext2().flush()) // СДН → СН
-                            .on('ц', e -> e.addEncoded(Sts).drop().skipNext2().flush()) // СДЦ → СЦ
+                            .on('ч', substitute('щ', 2, 2)) // СДЧ → Щ
+                            .on('г', substitute(Zg, 1, 2)) // СДГ → ЗГ
+                            .on('к', substitute(Sk, 1, 2)) // СДК → СК
+                            .on('л', substitute(Sl, 1, 2)) // СДЛ → СЛ
+                            .on('н', substitute(Sn, 1, 2)) // СДН → СН
+                            .on('ц', substitute(Sts, 1, 2)) // СДЦ → СЦ
                             .on('с', e -> {
                                         if (e.getNext(3) == 'к') {
                                             e.addEncoded(Sk).drop2().skipNext(3).flush(); // СДСК → СК
@@ -168,18 +195,18 @@ public final class RussianPhonemeRules {
                     ).build()
 
             ).on('з', nextConsonantRule()
-                    .on('щ', e -> e.addEncoded('щ').drop().skipNext().flush()) // ЗЩ → Щ
-                    .on('ш', e -> e.addEncoded('ш').drop().skipNext().flush()) // ЗШ → Ш
-                    .on('с', e -> e.addEncoded('с').drop().skipNext().flush()) // ЗС → С
-                    .on('ж', e -> e.addEncoded('ж').drop().skipNext().flush()) // ЗЖ → Ж
-                    .on('ч', e -> e.addEncoded('щ').drop().skipNext().flush()) // ЗЧ → Щ
+                    .on('щ', substitute('щ', 1, 1)) // ЗЩ → Щ
+                    .on('ш', substitute('ш', 1, 1)) // ЗШ → Ш
+                    .on('с', substitute('с', 1, 1)) // ЗС → С
+                    .on('ж', substitute('ж', 1, 1)) // ЗЖ → Ж
+                    .on('ч', substitute('щ', 1, 1)) // ЗЧ → Щ
                     .on('т', afterNextConsonantRule()
-                            .on('ч', e -> e.addEncoded('щ').drop2().skipNext2().flush()) // ЗТЧ → Щ
-                            .on('г', e -> e.addEncoded(Zg).drop().skipNext2().flush()) // ЗТГ → ЗГ
-                            .on('к', e -> e.addEncoded(Sk).drop().skipNext2().flush()) // ЗТК → СК
-                            .on('л', e -> e.addEncoded(Sl).drop().skipNext2().flush()) // ЗТЛ → СЛ
-                            .on('н', e -> e.addEncoded(Zn).drop().skipNext2().flush()) // ЗТН → СН
-                            .on('ц', e -> e.addEncoded(Sts).drop().skipNext2().flush()) // ЗТЦ → СЦ
+                            .on('ч', substitute('щ', 2, 2)) // ЗТЧ → Щ
+                            .on('г', substitute(Zg, 1, 2)) // ЗТГ → ЗГ
+                            .on('к', substitute(Sk, 1, 2)) // ЗТК → СК
+                            .on('л', substitute(Sl, 1, 2)) // ЗТЛ → СЛ
+                            .on('н', substitute(Zn, 1, 2)) // ЗТН → СН
+                            .on('ц', substitute(Sts, 1, 2)) // ЗТЦ → СЦ
                             .on('с', e -> {
                                         if (e.getNext(3) == 'к') {
                                             e.addEncoded(Sk).drop2().skipNext(3).flush(); // ЗТСК → СК
@@ -189,12 +216,12 @@ public final class RussianPhonemeRules {
                             ).build()
                     )
                     .on('д', afterNextConsonantRule()
-                            .on('ч', e -> e.addEncoded('щ').drop2().skipNext2().flush()) // ЗДЧ → Щ
-                            .on('г', e -> e.addEncoded(Zg).drop().skipNext2().flush()) // ЗДГ → ЗГ
-                            .on('к', e -> e.addEncoded(Sk).drop().skipNext2().flush()) // ЗДК → СК | громоздкий -> громоский
-                            .on('л', e -> e.addEncoded(Sl).drop().skipNext2().flush()) // ЗТЛ → СЛ
-                            .on('н', e -> e.addEncoded(Zn).drop().skipNext2().flush()) // ЗДН → ЗН
-                            .on('ц', e -> e.addEncoded(Sts).drop().skipNext2().flush()) // ЗДЦ → СЦ
+                            .on('ч', substitute('щ', 2, 2)) // ЗДЧ → Щ
+                            .on('г', substitute(Zg, 1, 2)) // ЗДГ → ЗГ
+                            .on('к', substitute(Sk, 1, 2)) // ЗДК → СК | громоздкий -> громоский
+                            .on('л', substitute(Sl, 1, 2)) // ЗТЛ → СЛ
+                            .on('н', substitute(Zn, 1, 2)) // ЗДН → ЗН
+                            .on('ц', substitute(Sts, 1, 2)) // ЗДЦ → СЦ
                             .on('с', e -> {
                                         if (e.getNext(3) == 'к') {
                                             e.addEncoded(Sk).drop2().skipNext(3).flush(); // ЗДСК → СК
@@ -207,11 +234,11 @@ public final class RussianPhonemeRules {
 
             ).on('н', nextConsonantRule()
                     .on('д', afterNextConsonantRule()
-                            .on('ч', e -> e.addEncoded('щ').drop2().skipNext2().flush()) // ЗДЧ → Щ
-                            .on('г', e -> e.addEncoded(Zg).drop().skipNext2().flush()) // ЗДГ → ЗГ
-                            .on('к', e -> e.addEncoded(Nk).drop().skipNext2().flush()) // НДК → НК
-                            .on('ц', e -> e.addEncoded(Nts).drop().skipNext2().flush()) // НДЦ → НЦ
-                            .on('ш', e -> e.addEncoded(Nsh).drop().skipNext2().flush()) // НДШ → НШ
+                            .on('ч', substitute('щ', 2, 2)) // ЗДЧ → Щ
+                            .on('г', substitute(Zg, 1, 2)) // ЗДГ → ЗГ
+                            .on('к', substitute(Nk, 1, 2)) // НДК → НК
+                            .on('ц', substitute(Nts, 1, 2)) // НДЦ → НЦ
+                            .on('ш', substitute(Nsh, 1, 2)) // НДШ → НШ
                             .on('с', e -> {
                                         char afterAfterNext = e.getNext(3);
                                         if (afterAfterNext == 'к') {
@@ -224,11 +251,11 @@ public final class RussianPhonemeRules {
                             ).build()
                     )
                     .on('т', afterNextConsonantRule()
-                            .on('ч', e -> e.addEncoded('щ').drop2().skipNext2().flush()) // ЗТЧ → Щ
-                            .on('г', e -> e.addEncoded(Ng).drop().skipNext2().flush()) // ЗТГ → ЗГ
-                            .on('к', e -> e.addEncoded(Nk).drop().skipNext2().flush()) // НТК → НК
-                            .on('ц', e -> e.addEncoded(Nts).drop().skipNext2().flush()) // НТЦ → НЦ
-                            .on('ш', e -> e.addEncoded(Nsh).drop().skipNext2().flush()) // НТШ → НШ
+                            .on('ч', substitute('щ', 2, 2)) // ЗТЧ → Щ
+                            .on('г', substitute(Ng, 1, 2)) // ЗТГ → ЗГ
+                            .on('к', substitute(Nk, 1, 2)) // НТК → НК
+                            .on('ц', substitute(Nts, 1, 2)) // НТЦ → НЦ
+                            .on('ш', substitute(Nsh, 1, 2)) // НТШ → НШ
                             .on('с', e -> {
                                         char afterAfterNext = e.getNext(3);
                                         if (afterAfterNext == 'к') {
@@ -243,16 +270,16 @@ public final class RussianPhonemeRules {
                     ).build()
 
             ).on('д', nextConsonantRule()
-                    .on('т', e -> e.addEncoded('т').drop().skipNext().flush()) // ДТ → Т
-                    .on('ч', e -> e.addEncoded('ч').drop().skipNext().flush()) // ДЧ → Ч
-                    .on('щ', e -> e.addEncoded('щ').drop().skipNext().flush()) // ДЩ → Щ
-                    .on('ц', e -> e.addEncoded('ц').drop().skipNext().flush()) // ДЦ → Ц
+                    .on('т', substitute('т', 1, 1)) // ДТ → Т
+                    .on('ч', substitute('ч', 1, 1)) // ДЧ → Ч
+                    .on('щ', substitute('щ', 1, 1)) // ДЩ → Щ
+                    .on('ц', substitute('ц', 1, 1)) // ДЦ → Ц
                     .on('с', e -> { // ТС → Ц
                                 e.addEncoded('ц');
                                 int nextBits;
-                                if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(2))) > 0x80ff) {
+                                if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(2))) > VOWEL) {
                                     // consistency with vowels after 'ц'
-                                    e.addEncoded(encodeVowel(0x8015, nextBits, e.getNextBits(3), e)).skipNext();
+                                    e.addEncoded(encodeVowel(UNVOICED_SIZZLE, nextBits, e.getNextBits(3), e)).skipNext();
                                 }
                                 e.drop().skipNext().flush();
                             }
@@ -261,9 +288,9 @@ public final class RussianPhonemeRules {
                                 if (e.getNext(2) == 'с') {
                                     e.addEncoded('ц');
                                     int nextBits;
-                                    if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(3))) > 0x80ff) {
+                                    if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(3))) > VOWEL) {
                                         // consistency with vowels after 'ц'
-                                        e.addEncoded(encodeVowel(0x8015, nextBits, e.getNextBits(4), e)).skipNext();
+                                        e.addEncoded(encodeVowel(UNVOICED_SIZZLE, nextBits, e.getNextBits(4), e)).skipNext();
                                     }
                                     e.drop2().skipNext2().flush();
                                 }
@@ -272,16 +299,16 @@ public final class RussianPhonemeRules {
                     ).build()
 
             ).on('т', nextConsonantRule()
-                    .on('д', e -> e.addEncoded('д').drop().skipNext().flush())
-                    .on('ч', e -> e.addEncoded('ч').drop().skipNext().flush()) // ТЧ → Ч
-                    .on('щ', e -> e.addEncoded('щ').drop().skipNext().flush()) // ТЩ → Щ
-                    .on('ц', e -> e.addEncoded('ц').drop().skipNext().flush()) // ТЦ → Ц
+                    .on('д', substitute('д', 1, 1))
+                    .on('ч', substitute('ч', 1, 1)) // ТЧ → Ч
+                    .on('щ', substitute('щ', 1, 1)) // ТЩ → Щ
+                    .on('ц', substitute('ц', 1, 1)) // ТЦ → Ц
                     .on('с', e -> { // ТС → Ц
                         e.addEncoded('ц');
                         int nextBits;
-                        if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(2))) > 0x80ff) {
+                        if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(2))) > VOWEL) {
                             // consistency with vowels after 'ц'
-                            e.addEncoded(encodeVowel(0x8015, nextBits, e.getNextBits(3), e)).skipNext();
+                            e.addEncoded(encodeVowel(UNVOICED_SIZZLE, nextBits, e.getNextBits(3), e)).skipNext();
                         }
                         e.drop().skipNext().flush();
                     })
@@ -290,9 +317,9 @@ public final class RussianPhonemeRules {
                                 if (afterNext == 'с') { // ТЬС → Ц
                                     e.addEncoded('ц');
                                     int nextBits;
-                                    if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(3))) > 0x80ff) {
+                                    if (e.canEncodeVowel() && (nextBits = bitsForChar(e.getNext(3))) > VOWEL) {
                                         // consistency with vowels after 'ц'
-                                        e.addEncoded(encodeVowel(0x8015, nextBits, e.getNextBits(4), e)).skipNext();
+                                        e.addEncoded(encodeVowel(UNVOICED_SIZZLE, nextBits, e.getNextBits(4), e)).skipNext();
                                     }
                                     e.skipNext2().drop2().flush();
                                 } else if (afterNext == 'щ' || afterNext == 'ш') {
@@ -303,7 +330,7 @@ public final class RussianPhonemeRules {
                     ).build()
 
             ).on('в', nextConsonantRule()
-                    .on('ф', e -> e.addEncoded('ф').drop().skipNext().flush())
+                    .on('ф', substitute('ф', 1, 1))
                     .on('с', e -> {
                         if (e.getNext(2) == 'т' && e.getNext(3) == 'в') {
                             e.addEncoded(STV).drop().skipNext(3).flush(); // ВСТВ → СТВ
@@ -311,7 +338,7 @@ public final class RussianPhonemeRules {
                     }).build()
 
             ).on('ф', nextConsonantRule()
-                    .on('в', e -> e.addEncoded('ф').drop().skipNext().flush())
+                    .on('в', substitute('ф', 1, 1))
                     .on('с', e -> {
                         if (e.getNext(2) == 'т' && e.getNext(3) == 'в') {
                             e.addEncoded(STV).drop().skipNext(3).flush(); // ФСТВ → СТВ
@@ -319,22 +346,22 @@ public final class RussianPhonemeRules {
                     }).build()
 
             ).on('ж', nextConsonantRule()
-                    .on('ч', e -> e.addEncoded('щ').drop().skipNext().flush()) // ЖЧ → Щ
-                    .on('к', e -> e.addEncoded(Shk).skipNext().flush()) // ЖК → ШК
+                    .on('ч', substitute('щ', 1, 1)) // ЖЧ → Щ
+                    .on('к', substitute(Shk, 0, 1)) // ЖК → ШК
                     .build()
 
             ).on('р', nextConsonantRule()
                     .on('д', afterNextConsonantRule()
-                            .on('ц', e -> e.addEncoded(Rts).drop().skipNext2().flush()) // РДЦ → РЦ
-                            .on('ч', e -> e.addEncoded(Rch).drop().skipNext2().flush()) // РДЧ → РЧ
+                            .on('ц', substitute(Rts, 1, 2)) // РДЦ → РЦ
+                            .on('ч', substitute(Rch, 1, 2)) // РДЧ → РЧ
                             .build()
                     ).build()
 
             ).on('ч', nextConsonantRule()
-                    .on('ш', e -> e.addEncoded('щ').drop().skipNext().flush()) // ЧШ → Щ
-                    .on('щ', e -> e.addEncoded('щ').drop().skipNext().flush()) // ЧЩ → Щ
-                    .on('н', e -> e.addEncoded(Shn).skipNext().flush()) // ЧН → ШН
-                    .on('т', e -> e.addEncoded(Sht).skipNext().flush()) // ЧТ → ШТ
+                    .on('ш', substitute('щ', 1, 1)) // ЧШ → Щ
+                    .on('щ', substitute('щ', 1, 1)) // ЧЩ → Щ
+                    .on('н', substitute(Shn, 0, 1)) // ЧН → ШН
+                    .on('т', substitute(Sht, 0, 1)) // ЧТ → ШТ
                     .build()
 
             ).on('л', e -> {
@@ -345,21 +372,24 @@ public final class RussianPhonemeRules {
 
             ).on('й', e -> {
                         int nextBits = e.getNextBits();
-                        if (e.isFirst() && nextBits > 0x80ff && e.canEncodeVowel()) {
+                        if (e.isFirst() && nextBits > VOWEL && e.canEncodeVowel()) {
                             char vowel;
                             char mapped;
-                            if (nextBits > 0xc07f) {
+                            if (e.takeAlternative()) {
+                                // the vowel is encoded as if there was no iotation
+                                mapped = encodeVowel(NONE, nextBits, e.getNextBits(2), e);
+                            } else if (nextBits >= VOWEL_YU) {
                                 mapped = 'ю';
                             } else if ((vowel = e.getNext()) == 'а') {
                                 mapped = 'я';
                             } else if (vowel == 'о') {
                                 mapped = 'э';
                             } else {
-                                mapped = encodeVowel(0x0, nextBits, e.getNextBits(2), e);
+                                mapped = encodeVowel(NONE, nextBits, e.getNextBits(2), e);
                             }
                             e.addEncoded(mapped).drop().skipNext();
                         }
-                        if (nextBits < 0x80ff) {
+                        if (nextBits < VOWEL) {
                             e.addEncoded('й');
                         } else {
                             e.drop();
@@ -385,8 +415,9 @@ public final class RussianPhonemeRules {
                             e.addEncoded(KhK).skipNext().flush(); // ГК → ХК
                         } else {
                             char previous = e.getPrev();
-                            if (e.getRemainingOriginalLength() == 1 && next == 'о' && (previous == 'е' || previous == 'о')) {
-                                e.addEncoded('в').flush(); // ОГО, ЕГО → АВА, ЭВА
+                            if (e.getRemainingOriginalLength() == 1 && next == 'о' && (previous == 'е' || previous == 'о')
+                                    && !e.takeAlternative()) {
+                                e.addEncoded('в').flush(); // ОГО, ЕГО → АВА, ЭВА (alternatively Г is kept)
                             }
                         }
                     }
@@ -399,17 +430,18 @@ public final class RussianPhonemeRules {
                         boolean forceVoicing = false;
                         if (Math.min(e.getRemainingLength(), e.getRemainingOriginalLength()) == 0) {
                             // double voicing on max length reached
-                            forceVoicing = (nextBits & 0x8) == 0x8 && (bits & 0x8) == 0x8 && e.getRemainingOriginalLength() < 3;
+                            forceVoicing = (nextBits & VOICED) == VOICED && (bits & VOICED) == VOICED
+                                    && e.getRemainingOriginalLength() < 3;
                         }
 
-                        if (nextBits == 0x40) {
+                        if (nextBits == SIGN) {
                             nextBits = bitsForChar(e.getNext(2));
                         }
 
                         // consonant voicing within the word
                         if (forceVoicing ||
-                                ((nextBits & 0x0018) == 0x0018 && (bits & 0x4) == 0x4) ||
-                                ((nextBits & 0x0014) == 0x0014 && (bits & 0x8) == 0x8)) {
+                                ((nextBits & (DOMINANT | VOICED)) == (DOMINANT | VOICED) && (bits & UNVOICED) == UNVOICED) ||
+                                ((nextBits & (DOMINANT | UNVOICED)) == (DOMINANT | UNVOICED) && (bits & VOICED) == VOICED)) {
                             char currPair = getPair(e.getCurr());
                             if (currPair != 0) {
                                 e.updateEncoded(currPair);
@@ -423,39 +455,45 @@ public final class RussianPhonemeRules {
 
             ).build();
 
+
+    /**
+     * Russian Consonants Encoding Rules flattened into the transition table
+     */
+    public static final PhonemeRule COMPILED_CONSONANTS = CompiledPhonemeRule.compile(CONSONANTS);
+
     private static char encodeVowel(int prevBits, int vowelBits, int nextBits, PhonemeExchange e) {
         char encoded;
-        if (prevBits < 0x40) {
+        if (prevBits < SIGN) {
             // first-in-word vowel mapping
             switch (vowelBits) {
-                case 0x8d00:
+                case VOWEL_AO:
                     encoded = 'а';
                     break;
-                case 0xa480:
+                case VOWEL_YA:
                     encoded = 'я';
                     break;
-                case 0xc100:
+                case VOWEL_U:
                     encoded = 'у';
                     break;
-                case 0xc080:
+                case VOWEL_YU:
                     encoded = 'ю';
                     break;
                 default:
                     encoded = 'э';
             }
 
-        } else if (vowelBits > 0xc07f) {
+        } else if (vowelBits >= VOWEL_YU) {
             // УЮ vowel
             encoded = '3';
-        } else if ((prevBits & 0x1) == 0x1) {
+        } else if ((prevBits & SIZZLE) == SIZZLE) {
             // not УЮ vowel before SIZZLE
             encoded = '2';
-        } else if (vowelBits == 0xa480) {
+        } else if (vowelBits == VOWEL_YA) {
             // if Я after SOUND_PAIRED
-            encoded = (prevBits & 0x2) == 0x2 ? '2' : '1';
+            encoded = (prevBits & SOUND_PAIRED) == SOUND_PAIRED ? '2' : '1';
         } else {
             // look up vowel group
-            encoded = (vowelBits & 0x0fff) > 0x3ff ? '1' : '2';
+            encoded = (vowelBits & (VOW2 | GROUP_1)) != 0 ? '1' : '2';
         }
 
         ////////////////////////////////////////////////////////
@@ -468,8 +506,8 @@ public final class RussianPhonemeRules {
         //
         ////////////////////////////////////////////////////////
 
-        if (((nextBits & 0x1000) == 0x1000) && (encoded == '2' || encoded == 'э')
-                || (encoded == '1' && (nextBits & 0x0800) == 0x0800)) {
+        if (((nextBits & VOW1) == VOW1) && (encoded == '2' || encoded == 'э')
+                || (encoded == '1' && (nextBits & VOW2) == VOW2)) {
             e.drop().skipNext();
         }
 
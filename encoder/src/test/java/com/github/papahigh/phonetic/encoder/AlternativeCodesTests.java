@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.buffer.StemmedInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+
+public class AlternativeCodesTests extends RussianEncoderTestCase {
+
+    @Test
+    public void testAmbiguousSites() {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+
+        // voicing at the end of word
+        assertArrayEquals(new String[]{"д3п", "д3б"}, encoder.encodeAlternatives("дуб", 4));
+        // ОГО, ЕГО → АВА, ЭВА
+        assertArrayEquals(new String[]{"т1лст1в1", "т1лст1г1"}, encoder.encodeAlternatives("толстого", 4));
+        // first vowel mapping
+        assertArrayEquals(new String[]{"эс2ф", "ас2ф"}, encoder.encodeAlternatives("иосиф", 4));
+        assertArrayEquals(new String[]{"эс2ф", "ас2ф"}, encoder.encodeAlternatives("йосиф", 4));
+        // Ё written as Е
+        assertEquals("к1р1л2ф", encoder.encodeAlternatives("королёв", 4)[1]);
+        assertEquals(encoder.encode("королев"), encoder.encodeAlternatives("королёв", 4)[1]);
+
+        assertArrayEquals(new String[]{"к1р1л1ф"}, encoder.encodeAlternatives("королёв", 1));
+        assertArrayEquals(new String[]{"г1л1нск2"}, encoder.encodeAlternatives("голландский", 4));
+        assertArrayEquals(new String[]{""}, encoder.encodeAlternatives("", 4));
+    }
+
+    @Test
+    public void testPrimaryCodeComesFirst() {
+        // words with ambiguous sites in addition to the shared words
+        List<String> words = new ArrayList<>(WORDS);
+        words.addAll(Arrays.asList("королёв", "иосиф", "йосиф", "толстого", "дуб"));
+
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            for (int maxLength = 1; maxLength < 12; maxLength++) {
+                PhoneticEncoder encoder = newEncoder(vowelsMode, maxLength);
+                for (String word : words) {
+                    for (int maxCodes = 1; maxCodes < 6; maxCodes++) {
+                        String[] codes = encoder.encodeAlternatives(word, maxCodes);
+                        assertTrue(codes.length <= maxCodes);
+                        assertEquals(encoder.encode(word), codes[0]);
+                        assertEquals(codes.length, new HashSet<>(Arrays.asList(codes)).size());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStemmedInputIsRewound() {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+        PhonemeExchange exchange = encoder.newExchange();
+
+        // chars dropped while encoding the primary code shorten the stem
+        char[] chars = "бельё".toCharArray();
+        StemmedInputBuffer input = new StemmedInputBuffer(chars, chars.length, 4, 8);
+        char[] target = new char[3 * 8];
+        int[] codeOffsets = new int[4];
+
+        int count = encoder.encodeAlternatives(input, exchange, 3, target, codeOffsets);
+        assertEquals(2, count);
+        assertEquals("б2л1", new String(target, codeOffsets[0], codeOffsets[1] - codeOffsets[0]));
+        assertEquals("б2л2", new String(target, codeOffsets[1], codeOffsets[2] - codeOffsets[1]));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import org.junit.Test;
+
+
+public class BatchEncodingTests extends RussianEncoderTestCase {
+
+    @Test
+    public void testBatchMatchesSingleWordEncoding() {
+        StringBuilder packed = new StringBuilder("##");
+        int[] offsets = new int[WORDS.size()];
+        int[] lengths = new int[WORDS.size()];
+        for (int i = 0; i < WORDS.size(); i++) {
+            String word = WORDS.get(i);
+            offsets[i] = packed.length();
+            lengths[i] = word.length();
+            packed.append(word).append(' ');
+        }
+        char[] source = packed.toString().toCharArray();
+
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            for (int maxLength = 1; maxLength < 12; maxLength++) {
+
+                PhoneticEncoder encoder = newEncoder(vowelsMode, maxLength);
+
+                char[] target = new char[WORDS.size() * maxLength];
+                int[] codeOffsets = new int[WORDS.size() + 1];
+
+                int total = encoder.encode(source, offsets, lengths, WORDS.size(), target, codeOffsets);
+
+                assertEquals(total, codeOffsets[WORDS.size()]);
+                // mixed case words are lowercased while encoded, not in the source
+                assertEquals(packed.toString(), new String(source));
+                for (int i = 0; i < WORDS.size(); i++) {
+                    String code = new String(target, codeOffsets[i], codeOffsets[i + 1] - codeOffsets[i]);
+                    assertEquals(encoder.encode(WORDS.get(i)), code);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.BulkEncoder;
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+
+public class BulkEncodingTests extends RussianEncoderTestCase {
+
+    private static final PhoneticEncoder ENCODER = newEncoder(VowelsMode.ENCODE_FIRST, 8);
+
+    @Test
+    public void testBulkMatchesSingleWordEncoding() {
+        List<String> words = repeat(WORDS, 100);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            String[] codes = new BulkEncoder(() -> ENCODER, pool, 7).encode(words);
+
+            assertEquals(words.size(), codes.length);
+            for (int i = 0; i < words.size(); i++) {
+                assertEquals(ENCODER.encode(words.get(i)), codes[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testIndexGroupsWordsByCode() {
+        List<String> words = repeat(WORDS, 100);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<String, Set<String>> index = new BulkEncoder(() -> ENCODER, pool, 5).index(words);
+
+            int indexed = 0;
+            for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+                for (String word : entry.getValue()) {
+                    assertEquals(entry.getKey(), ENCODER.encode(word));
+                }
+                indexed += entry.getValue().size();
+            }
+            assertEquals(WORDS.size(), indexed);
+            assertTrue(index.get(ENCODER.encode("тетрадка")).contains("тетратка"));
+            assertTrue(index.get(ENCODER.encode("его")).contains("ево"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalChunkSize() {
+        new BulkEncoder(() -> ENCODER, ForkJoinPool.commonPool(), 0);
+    }
+
+    private static List<String> repeat(List<String> words, int times) {
+        List<String> result = new ArrayList<>(words.size() * times);
+        for (int i = 0; i < times; i++) {
+            result.addAll(words);
+        }
+        return result;
+    }
+}
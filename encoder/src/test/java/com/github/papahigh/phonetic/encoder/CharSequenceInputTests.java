@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.buffer.Buffer;
+import com.github.papahigh.phonetic.buffer.CharSequenceInputBuffer;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+
+
+public class CharSequenceInputTests extends RussianEncoderTestCase {
+
+    private static final String TEXT = "голландский абсурд здравствуйте вдрызг я тетрадка 王明：這是什麼？ агентство йогурт молотьба";
+
+    private static final PhoneticEncoder ENCODER = newEncoder(VowelsMode.ENCODE_ALL, 8);
+
+    @Test
+    public void testRegionsOfSharedInput() {
+        char[] text = TEXT.toCharArray();
+        StringBuilder builder = new StringBuilder(TEXT);
+        CharBuffer charBuffer = CharBuffer.wrap(text);
+
+        PhonemeExchange exchange = ENCODER.newExchange();
+        LimitedLengthInputBuffer arraySlice = new LimitedLengthInputBuffer(text, 0, 0, 8);
+        CharSequenceInputBuffer builderSlice = new CharSequenceInputBuffer(builder, 0, 0, 8);
+        CharSequenceInputBuffer charBufferSlice = new CharSequenceInputBuffer(charBuffer, 8);
+
+        for (int start = 0, end; start < text.length; start = end + 1) {
+            end = TEXT.indexOf(' ', start);
+            if (end < 0) {
+                end = text.length;
+            }
+            int length = end - start;
+            String expected = ENCODER.encode(TEXT.substring(start, end));
+
+            assertEquals(expected, toString(ENCODER.encode(new LimitedLengthInputBuffer(text, start, length, 8))));
+            assertEquals(expected, toString(ENCODER.encode(arraySlice.reset(text, start, length), exchange)));
+            assertEquals(expected, toString(ENCODER.encode(new CharSequenceInputBuffer(builder, start, length, 8))));
+            assertEquals(expected, toString(ENCODER.encode(builderSlice.reset(builder, start, length), exchange)));
+            assertEquals(expected, toString(ENCODER.encode(charBufferSlice.reset(charBuffer, start, length), exchange)));
+        }
+    }
+
+    @Test
+    public void testEqualsAcrossBufferTypes() {
+        char[] text = TEXT.toCharArray();
+        LimitedLengthInputBuffer arraySlice = new LimitedLengthInputBuffer(text, 12, 6, 8);
+        CharSequenceInputBuffer builderSlice = new CharSequenceInputBuffer(new StringBuilder(TEXT), 12, 6, 8);
+
+        assertEquals(arraySlice, builderSlice);
+        assertEquals(arraySlice.hashCode(), builderSlice.hashCode());
+        assertEquals('а', builderSlice.charAt(0));
+        assertEquals(Character.MIN_VALUE, builderSlice.charAt(6));
+        assertEquals(Character.MIN_VALUE, builderSlice.charAt(-1));
+        assertEquals("абсурд", toString(builderSlice));
+        assertEquals("явно", toString(builderSlice.reset("совсем явно", 7, 4)));
+    }
+
+    private static String toString(Buffer buffer) {
+        return new String(buffer.getBuffer(), buffer.getOffset(), buffer.getLength());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.dictionary.CodeDictionary;
+import com.github.papahigh.phonetic.dictionary.CodeDictionaryWriter;
+import com.github.papahigh.phonetic.dictionary.DictionaryEncoder;
+import org.apache.commons.codec.StringEncoder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+
+public class CodeDictionaryTests extends RussianEncoderTestCase {
+
+    @Test
+    public void testLookupMatchesEncoding() throws IOException {
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            PhoneticEncoder encoder = newEncoder(vowelsMode, 8);
+            Path path = createTempDir().resolve("codes.dict");
+
+            // the empty word and the case-only duplicate are not written
+            assertEquals(WORDS.size() - 2, new CodeDictionaryWriter(encoder).write(WORDS, path));
+
+            CodeDictionary dictionary = CodeDictionary.open(path);
+            assertEquals(WORDS.size() - 2, dictionary.size());
+            assertEquals(vowelsMode, dictionary.getVowelsMode());
+            assertEquals(8, dictionary.getMaximumLength());
+
+            char[] code = new char[8];
+            for (String word : WORDS) {
+                if (word.isEmpty()) continue;
+                char[] chars = word.toLowerCase(Locale.ROOT).toCharArray();
+                int codeLength = dictionary.lookup(chars, 0, chars.length, code, 0);
+                assertEquals(encoder.encode(word), new String(code, 0, codeLength));
+            }
+
+            char[] missing = "французских".toCharArray();
+            assertEquals(-1, dictionary.lookup(missing, 0, missing.length, code, 0));
+            assertEquals(-1, dictionary.lookup(missing, 0, 0, code, 0));
+        }
+    }
+
+    @Test
+    public void testDictionaryEncoderFallsBackToRules() throws Exception {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+        Path path = createTempDir().resolve("codes.dict");
+        new CodeDictionaryWriter(encoder).write(WORDS.subList(0, 5), path);
+
+        try (CodeDictionary dictionary = CodeDictionary.open(path)) {
+            DictionaryEncoder dictionaryEncoder = new DictionaryEncoder(dictionary, encoder);
+            StringEncoder singleThreadEncoder = dictionaryEncoder.newSingleThreadEncoder();
+            for (String word : WORDS) {
+                assertEquals(encoder.encode(word), dictionaryEncoder.encode(word));
+                assertEquals(encoder.encode(word), singleThreadEncoder.encode(word));
+            }
+            assertEquals("", dictionaryEncoder.encode((String) null));
+            assertEquals("", singleThreadEncoder.encode((String) null));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLookupAfterClose() throws IOException {
+        Path path = createTempDir().resolve("codes.dict");
+        new CodeDictionaryWriter(newEncoder(VowelsMode.ENCODE_ALL, 8)).write(WORDS, path);
+
+        CodeDictionary dictionary = CodeDictionary.open(path);
+        dictionary.close();
+
+        char[] word = "абсурд".toCharArray();
+        dictionary.lookup(word, 0, word.length, new char[8], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompatibleEncoder() throws IOException {
+        Path path = createTempDir().resolve("codes.dict");
+        new CodeDictionaryWriter(newEncoder(VowelsMode.ENCODE_ALL, 8)).write(WORDS, path);
+
+        new DictionaryEncoder(CodeDictionary.open(path), newEncoder(VowelsMode.ENCODE_ALL, 12));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotADictionary() throws IOException {
+        Path path = createTempDir().resolve("codes.dict");
+        Files.write(path, WORDS);
+
+        CodeDictionary.open(path);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.buffer.Buffer;
+import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
+import com.github.papahigh.phonetic.buffer.StemmedInputBuffer;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+
+public class ExchangeReuseTests extends RussianEncoderTestCase {
+
+    @Test
+    public void testReusedExchangeMatchesNewExchange() {
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            for (int maxLength = 1; maxLength < 12; maxLength++) {
+
+                PhoneticEncoder encoder = newEncoder(vowelsMode, maxLength);
+
+                PhonemeExchange exchange = encoder.newExchange();
+                LimitedLengthInputBuffer reusedInput = new LimitedLengthInputBuffer(new char[0], 0, maxLength);
+
+                for (String word : WORDS) {
+                    char[] chars = word.toCharArray();
+                    Buffer expected = encoder.encode(new LimitedLengthInputBuffer(chars, chars.length, maxLength));
+                    Buffer actual = encoder.encode(reusedInput.reset(chars, chars.length), exchange);
+                    assertEquals(toString(expected), toString(actual));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLookAheadWindowFollowsIndex() {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+
+        PhonemeExchange exchange = encoder.newExchange();
+        for (String word : WORDS) {
+            char[] chars = word.toCharArray();
+            exchange.reset(new LimitedLengthInputBuffer(chars, chars.length, 8));
+            // window slides when the index moves by one and is reloaded otherwise
+            for (int index = 0; index < chars.length + 2; ) {
+                PhonemeExchange expected = encoder.newExchange().reset(new LimitedLengthInputBuffer(chars, chars.length, 8));
+                expected.skipNext(index);
+
+                assertEquals(charAt(chars, index - 1), exchange.getPrev());
+                assertEquals(charAt(chars, index + 1), exchange.getNext());
+                assertEquals(charAt(chars, index + 2), exchange.getNext(2));
+                assertEquals(charAt(chars, index + 3), exchange.getNext(3));
+                assertEquals(expected.getPrevBits(), exchange.getPrevBits());
+                assertEquals(expected.getNextBits(), exchange.getNextBits());
+                assertEquals(expected.getNextBits(2), exchange.getNextBits(2));
+
+                int step = 1 + random().nextInt(3);
+                if (step == 1) {
+                    exchange.doneWithIt();
+                } else {
+                    exchange.skipNext(step);
+                }
+                index += step;
+            }
+        }
+    }
+
+    @Test
+    public void testReusedExchangeWithStemmedInput() {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+
+        PhonemeExchange exchange = encoder.newExchange();
+        StemmedInputBuffer reusedInput = new StemmedInputBuffer(new char[0], 0, 0, 8);
+
+        for (String word : WORDS) {
+            char[] chars = word.toCharArray();
+            for (int stemmedLength = 0; stemmedLength <= chars.length; stemmedLength++) {
+                Buffer expected = encoder.encode(new StemmedInputBuffer(chars, chars.length, stemmedLength, 8));
+                Buffer actual = encoder.encode(reusedInput.reset(chars, chars.length, stemmedLength), exchange);
+                assertEquals(toString(expected), toString(actual));
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeIntoTargetArray() {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 4);
+
+        PhonemeExchange exchange = encoder.newExchange();
+        LimitedLengthInputBuffer reusedInput = new LimitedLengthInputBuffer(new char[0], 0, 4);
+        char[] target = new char[]{'#', '#', '#', '#', '#', '#', '#'};
+
+        for (String word : WORDS) {
+            char[] chars = word.toCharArray();
+            String expected = toString(encoder.encode(new LimitedLengthInputBuffer(chars, chars.length, 4)));
+            Arrays.fill(target, '#');
+            int length = encoder.encode(reusedInput.reset(chars, chars.length), exchange, target, 2);
+            assertEquals(expected, new String(target, 2, length));
+            // nothing is written outside of the code region
+            assertEquals('#', target[0]);
+            assertEquals('#', target[1]);
+            for (int i = 2 + length; i < target.length; i++) {
+                assertEquals('#', target[i]);
+            }
+        }
+
+        char[] chars = "голландский".toCharArray();
+        expectThrows(IndexOutOfBoundsException.class,
+                () -> encoder.encode(reusedInput.reset(chars, chars.length), exchange, new char[5], 2));
+    }
+
+    private static char charAt(char[] chars, int index) {
+        return index >= 0 && index < chars.length ? chars[index] : Character.MIN_VALUE;
+    }
+
+    private static String toString(Buffer buffer) {
+        return new String(buffer.getBuffer(), buffer.getOffset(), buffer.getLength());
+    }
+}
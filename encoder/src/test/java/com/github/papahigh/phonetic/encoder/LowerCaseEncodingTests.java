@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.buffer.Buffer;
+import com.github.papahigh.phonetic.buffer.LowerCaseInputBuffer;
+import org.apache.commons.codec.EncoderException;
+import org.apache.commons.codec.StringEncoder;
+import org.junit.Test;
+
+import java.util.Locale;
+
+
+public class LowerCaseEncodingTests extends RussianEncoderTestCase {
+
+    private static final String[] MIXED_CASE_WORDS = {
+            "ГОЛЛАНДСКИЙ", "Абсурд", "ЗдРаВсТвУйТе", "ВДРЫЗГ", "Я", "ЁЖИК", "Ёлка", "ТЕТРАДКА",
+            "АГЕНТСТВО", "ЙОГУРТ", "МОЛОТЬБА", "ОБЪЕСДЧИК", "МЯГКИЙ", "ЕГО", "IVANOV", "王明：這是什麼？"
+    };
+
+    private static final PhoneticEncoder ENCODER = newEncoder(VowelsMode.ENCODE_ALL, 8);
+
+    @Test
+    public void testUpperCaseMatchesLowerCase() throws EncoderException {
+        StringEncoder singleThreadEncoder = ENCODER.newSingleThreadEncoder();
+        for (String word : MIXED_CASE_WORDS) {
+            String expected = ENCODER.encode(word.toLowerCase(Locale.ROOT));
+            assertEquals(word, expected, ENCODER.encode(word));
+            assertEquals(word, expected, ENCODER.encode(new StringBuilder(word)));
+            assertEquals(word, expected, ENCODER.encode((Object) new StringBuilder(word)));
+            assertEquals(word, expected, singleThreadEncoder.encode(word));
+        }
+    }
+
+    @Test
+    public void testLocaleIndependence() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertEquals(ENCODER.encode("тиНИ"), ENCODER.encode("ТИНИ"));
+            assertEquals(ENCODER.encode("iIIi"), ENCODER.encode("iiii"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void testBackingArray() {
+        LowerCaseInputBuffer buffer = new LowerCaseInputBuffer(new StringBuilder("Совсем ЯВНО"), 7, 4, 8);
+        assertEquals("явно", toString(buffer));
+        assertEquals("абсурд", toString(buffer.reset("АбсурД")));
+        assertEquals(ENCODER.encode("абсурд"), toString(ENCODER.encode(buffer.reset("АбсурД"))));
+    }
+
+    @Test
+    public void testToLowerCase() {
+        for (char c = Character.MIN_VALUE; c < Character.MAX_VALUE; c++) {
+            assertEquals(Character.toLowerCase(c), LowerCaseInputBuffer.toLowerCase(c));
+        }
+    }
+
+    private static String toString(Buffer buffer) {
+        return new String(buffer.getBuffer(), buffer.getOffset(), buffer.getLength());
+    }
+}
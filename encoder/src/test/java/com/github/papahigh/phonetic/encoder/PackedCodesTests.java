@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.phoneme.russian.PackedCodes;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class PackedCodesTests extends RussianEncoderTestCase {
+
+    @Test
+    public void testRoundTrip() {
+        for (String code : codes(12)) {
+            char[] chars = code.toCharArray();
+
+            long packed = PackedCodes.pack(chars, 0, chars.length);
+            assertTrue(packed >= 0);
+            assertEquals(code, PackedCodes.unpack(packed));
+
+            byte[] bytes = new byte[PackedCodes.bytesLength(chars.length) + 1];
+            int bytesLength = PackedCodes.packBytes(chars, 0, chars.length, bytes, 1);
+            assertEquals(PackedCodes.bytesLength(chars.length), bytesLength);
+            assertEquals(code, PackedCodes.unpackBytes(bytes, 1, bytesLength));
+
+            char[] packedChars = new char[PackedCodes.charsLength(chars.length)];
+            assertEquals(packedChars.length, PackedCodes.packChars(chars, 0, chars.length, packedChars, 0));
+            assertEquals(PackedCodes.CHARS_MARKER, packedChars[0]);
+            for (int i = 1; i < packedChars.length; i++) {
+                assertTrue(packedChars[i] >= '0' && packedChars[i] < 0x7f);
+            }
+            assertEquals(code, PackedCodes.unpackChars(packedChars, 0, packedChars.length));
+            // every packed char including the marker takes a single byte in the terms dictionary
+            assertEquals(packedChars.length, new String(packedChars).getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    @Test
+    public void testPackCharsInPlace() {
+        for (String code : codes(14)) {
+            // short codes take one more char once packed along with the marker
+            char[] chars = Arrays.copyOf(code.toCharArray(), Math.max(code.length(), PackedCodes.charsLength(code.length())));
+            char[] expected = new char[PackedCodes.charsLength(code.length())];
+            PackedCodes.packChars(chars, 0, code.length(), expected, 0);
+
+            int length = PackedCodes.packChars(chars, 0, code.length(), chars, 0);
+            assertArrayEquals(expected, Arrays.copyOf(chars, length));
+        }
+    }
+
+    @Test
+    public void testPackedOrder() {
+        List<String> codes = codes(12);
+        for (String a : codes) {
+            for (String b : codes) {
+                long packedA = PackedCodes.pack(a.toCharArray(), 0, a.length());
+                long packedB = PackedCodes.pack(b.toCharArray(), 0, b.length());
+                assertEquals(Integer.signum(a.compareTo(b)), Long.signum(Long.compare(packedA, packedB)));
+                assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(packChars(a).compareTo(packChars(b))));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLongForLong() {
+        PackedCodes.pack("бвгджзклмнпрс".toCharArray(), 0, 13);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedChar() {
+        PackedCodes.pack("бо".toCharArray(), 0, 2);
+    }
+
+    private static String packChars(String code) {
+        char[] packed = new char[PackedCodes.charsLength(code.length())];
+        return new String(packed, 0, PackedCodes.packChars(code.toCharArray(), 0, code.length(), packed, 0));
+    }
+
+    private static List<String> codes(int maxLength) {
+        List<String> codes = new ArrayList<>();
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            PhoneticEncoder encoder = newEncoder(vowelsMode, maxLength);
+            for (String word : WORDS) {
+                codes.add(encoder.encode(word));
+            }
+        }
+        return codes;
+    }
+}
@@ -23,19 +23,37 @@ import org.apache.commons.codec.EncoderException;
 import org.apache.commons.codec.StringEncoder;
 import org.apache.lucene.util.LuceneTestCase;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 
 public abstract class RussianEncoderTestCase extends LuceneTestCase {
 
-    StringEncoder getEncoder(int codeLength) {
+    /**
+     * Words compared across the encoding paths: mixed case, an empty and a non-Russian word,
+     * case-only duplicate (АБСУРД), similar sounding pairs (тетрадка/тетратка, его/ево) and every vowel.
+     */
+    static final List<String> WORDS = Collections.unmodifiableList(Arrays.asList(
+            "Голландский", "абсурд", "здравствуйте", "", "вдрызг", "я", "тетрадка", "тетратка", "АБСУРД",
+            "王明：這是什麼？", "агентство", "йогурт", "молотьба", "объесдчик", "мягкий", "его", "ево",
+            "Ёжик", "юла", "ящурный", "щётка", "цапля", "эхо", "улица"
+    ));
+
+    static PhoneticEncoder newEncoder(VowelsMode vowelsMode, int codeLength) {
         return new PhoneticEncoder(
                 RussianPhonemeExchange.FACTORY,
                 RussianPhonemeRules.CONSONANTS,
                 RussianPhonemeRules.VOWELS,
-                VowelsMode.ENCODE_ALL,
+                vowelsMode,
                 codeLength
         );
     }
 
+    StringEncoder getEncoder(int codeLength) {
+        return newEncoder(VowelsMode.ENCODE_ALL, codeLength);
+    }
+
     StringEncoder getEncoder() {
         return getEncoder(8);
     }
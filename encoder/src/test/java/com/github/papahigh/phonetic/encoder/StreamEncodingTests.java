@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.StreamEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import org.apache.lucene.util.TestUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+public class StreamEncodingTests extends RussianEncoderTestCase {
+
+    private static final Pattern WORD = Pattern.compile("[А-яЁё]+");
+
+    private static final String TEXT = "Голландский АБСУРД, здравствуйте!\nвдрызг Я тетрадка-Ёжик 王明：這是什麼？агентство " +
+            "(йогурт) IVANOV молотьба;объесдчик мягкий его дом😀дом 12";
+
+    @Test
+    public void testStreamMatchesWordEncoding() throws IOException {
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            for (int maxLength : new int[]{1, 4, 8, 14}) {
+                PhoneticEncoder encoder = newEncoder(vowelsMode, maxLength);
+                List<String> expected = encodeWords(encoder, TEXT);
+
+                // small buffers make the words cross the buffer boundaries
+                for (int bufferSize : new int[]{12, 13, 17, 64, 8192}) {
+                    StreamEncoder streamEncoder = new StreamEncoder(encoder, bufferSize);
+                    List<String> actual = new ArrayList<>();
+                    long words = streamEncoder.encode(new StringReader(TEXT), collect(actual));
+                    assertEquals(expected, actual);
+                    assertEquals(expected.size(), words);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testChannelInput() throws IOException {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+        StreamEncoder streamEncoder = new StreamEncoder(encoder, 16);
+        List<String> actual = new ArrayList<>();
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        streamEncoder.encode(Channels.newChannel(new ByteArrayInputStream(bytes)), collect(actual));
+        assertEquals(encodeWords(encoder, TEXT), actual);
+    }
+
+    @Test
+    public void testLongWordsAreTruncated() throws IOException {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+        StreamEncoder streamEncoder = new StreamEncoder(encoder, 4);
+        List<String> actual = new ArrayList<>();
+        streamEncoder.encode(new StringReader("здравствуйте дом агентство"), collect(actual));
+
+        List<String> expected = new ArrayList<>();
+        expected.add("0:4:" + encoder.encode("здра"));
+        expected.add("13:3:" + encoder.encode("дом"));
+        expected.add("17:4:" + encoder.encode("аген"));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testRandomInput() throws IOException {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_FIRST, 8);
+        StreamEncoder streamEncoder = new StreamEncoder(encoder, 32);
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < 20; j++) {
+                text.append(random().nextBoolean()
+                        ? TestUtil.randomRealisticUnicodeString(random(), 0, 10)
+                        : TestUtil.randomSimpleStringRange(random(), 'Ѐ', 'ӿ', 20));
+            }
+            List<String> actual = new ArrayList<>();
+            streamEncoder.encode(new StringReader(text.toString()), collect(actual));
+            assertEquals(encodeWords(encoder, text.toString()), actual);
+        }
+    }
+
+    private static List<String> encodeWords(PhoneticEncoder encoder, String text) {
+        List<String> codes = new ArrayList<>();
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            codes.add(matcher.start() + ":" + matcher.group().length() + ":" + encoder.encode(matcher.group()));
+        }
+        return codes;
+    }
+
+    private static StreamEncoder.CodeConsumer collect(List<String> codes) {
+        return (offset, length, code, codeLength) -> codes.add(offset + ":" + length + ":" + new String(code, 0, codeLength));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.papahigh.phonetic.encoder;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.Utf8Encoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import org.apache.lucene.util.TestUtil;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class Utf8EncodingTests extends RussianEncoderTestCase {
+
+    @Test
+    public void testUtf8MatchesCharEncoding() {
+        // one and four-byte chars in addition to the shared words
+        List<String> words = new ArrayList<>(WORDS);
+        words.addAll(Arrays.asList("IVANOV", "дом😀дом"));
+
+        for (VowelsMode vowelsMode : VowelsMode.values()) {
+            for (int maxLength = 1; maxLength < 12; maxLength++) {
+
+                PhoneticEncoder encoder = newEncoder(vowelsMode, maxLength);
+                Utf8Encoder utf8Encoder = new Utf8Encoder(encoder);
+                byte[] target = new byte[utf8Encoder.getMaximumBytesLength() + 4];
+
+                for (String word : words) {
+                    byte[] bytes = ("##" + word + "#").getBytes(StandardCharsets.UTF_8);
+                    byte[] expected = encoder.encode(word).getBytes(StandardCharsets.UTF_8);
+
+                    assertArrayEquals(word, expected, utf8Encoder.encode(bytes, 2, bytes.length - 3));
+
+                    int length = utf8Encoder.encode(bytes, 2, bytes.length - 3, target, 3);
+                    assertArrayEquals(word, expected, Arrays.copyOfRange(target, 3, 3 + length));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandomInput() {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+        Utf8Encoder utf8Encoder = new Utf8Encoder(encoder);
+        for (int i = 0; i < 10000; i++) {
+            String word = random().nextBoolean()
+                    ? TestUtil.randomRealisticUnicodeString(random(), 0, 20)
+                    : TestUtil.randomSimpleStringRange(random(), 'Ѐ', 'ӿ', 20);
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            assertEquals(word, encoder.encode(word), new String(utf8Encoder.encode(bytes, 0, bytes.length), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testMalformedInput() {
+        PhoneticEncoder encoder = newEncoder(VowelsMode.ENCODE_ALL, 8);
+        Utf8Encoder utf8Encoder = new Utf8Encoder(encoder);
+        byte[][] malformed = {
+                // truncated two-byte sequence
+                {(byte) 0xd0, (byte) 0xb4, (byte) 0xd0, (byte) 0xbe, (byte) 0xd0, (byte) 0xbc, (byte) 0xd0},
+                {(byte) 0xff, (byte) 0x80, (byte) 0xc0},
+                // overlong sequence is replaced by a char per byte, so "г" is not at the end of the word
+                {(byte) 0xd0, (byte) 0xb1, (byte) 0xd0, (byte) 0xbe, (byte) 0xd0, (byte) 0xb3, (byte) 0xe0, (byte) 0x80, (byte) 0x80},
+                // surrogate, truncated three and four-byte sequences, code point above U+10FFFF
+                {(byte) 0xd0, (byte) 0xb4, (byte) 0xed, (byte) 0xa0, (byte) 0x80, (byte) 0xd0, (byte) 0xbc},
+                {(byte) 0xd0, (byte) 0xb4, (byte) 0xe2, (byte) 0x82, (byte) 0xd0, (byte) 0xbc},
+                {(byte) 0xd0, (byte) 0xb4, (byte) 0xf0, (byte) 0x9f, (byte) 0x98, (byte) 0xd0, (byte) 0xbc},
+                {(byte) 0xd0, (byte) 0xb4, (byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80, (byte) 0xd0, (byte) 0xbc},
+        };
+        for (byte[] bytes : malformed) {
+            assertMatchesStringEncoding(encoder, utf8Encoder, bytes);
+        }
+        for (int i = 0; i < 10000; i++) {
+            byte[] bytes = new byte[random().nextInt(20)];
+            for (int j = 0; j < bytes.length; j++) {
+                // mostly Cyrillic lead and continuation bytes mixed with arbitrary ones
+                bytes[j] = (byte) (random().nextBoolean() ? 0xd0 + random().nextInt(2) : random().nextInt(256));
+                if (random().nextBoolean() && j + 1 < bytes.length) {
+                    bytes[++j] = (byte) (0x80 + random().nextInt(0x40));
+                }
+            }
+            assertMatchesStringEncoding(encoder, utf8Encoder, bytes);
+        }
+    }
+
+    private static void assertMatchesStringEncoding(PhoneticEncoder encoder, Utf8Encoder utf8Encoder, byte[] bytes) {
+        String word = new String(bytes, StandardCharsets.UTF_8);
+        assertEquals(word, encoder.encode(word), new String(utf8Encoder.encode(bytes, 0, bytes.length), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import java.util.Arrays;
+
+
+/**
+ * Bounded cache of phonetic codes keyed by lowercased terms, see {@link TermCache} for the table layout and eviction.
+ * Cached value is either a single code, NO_CODE for terms which should be left intact,
+ * or a sequence of length-prefixed codes (when the filter emits alternatives), the cache doesn't look into it.
+ * <p>
+ * This class is thread safe.
+ */
+public final class PhoneticCodeCache extends TermCache<char[]> {
+
+    /**
+     * Cached code of terms which should be left intact by the filter.
+     */
+    static final char[] NO_CODE = new char[0];
+
+
+    public PhoneticCodeCache(int size, Eviction eviction) {
+        super(size, eviction);
+    }
+
+
+    /**
+     * @param term       lowercased term chars
+     * @param length     number of valid chars in term
+     * @param code       code chars
+     * @param codeLength length of the code, or 0 if the term should be left intact
+     */
+    void put(char[] term, int length, char[] code, int codeLength) {
+        put(term, length, codeLength == 0 ? NO_CODE : Arrays.copyOf(code, codeLength));
+    }
+}
@@ -16,15 +16,18 @@
 package org.elasticsearch.index.analysis;
 
 import com.github.papahigh.phonetic.PhoneticEncoder;
-import com.github.papahigh.phonetic.buffer.Buffer;
 import com.github.papahigh.phonetic.buffer.InputBuffer;
 import com.github.papahigh.phonetic.buffer.LimitedLengthInputBuffer;
 import com.github.papahigh.phonetic.buffer.StemmedInputBuffer;
+import com.github.papahigh.phonetic.dictionary.CodeDictionary;
+import com.github.papahigh.phonetic.phoneme.PhonemeExchange;
+import com.github.papahigh.phonetic.phoneme.russian.PackedCodes;
 import org.apache.lucene.analysis.CharacterUtils;
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.util.ArrayUtil;
 import org.tartarus.snowball.SnowballProgram;
 
 import java.io.IOException;
@@ -35,9 +38,32 @@ public final class PhoneticFilter extends TokenFilter {
 
     private final PhoneticEncoder encoder;
     private final boolean replace;
+    private final boolean binaryOutput;
+    private final int maxAlternatives;
 
-    private final SnowballProgram stemmer;
-    private final int maxCodeLength;
+    private final StemmerPool stemmerPool;
+    private final StemLengthCache stemCache;
+    private final PhoneticCodeCache cache;
+    private final CodeDictionary dictionary;
+
+    // encoding context and input buffers are reused across tokens of this stream
+    private final PhonemeExchange exchange;
+    private final LimitedLengthInputBuffer limitedInputBuffer;
+    private final StemmedInputBuffer stemmedInputBuffer;
+    private final char[] codeBuffer;
+    private char[] termCopy = new char[0];
+    // stemmer is held from reset until close only
+    private SnowballProgram stemmer;
+
+    // alternative codes of the current token which are emitted as stacked tokens
+    private final char[] alternatives;
+    // alternatives as produced by the encoder, the same array as alternatives unless codes are packed
+    private final char[] encodedAlternatives;
+    private final int[] alternativeOffsets;
+    private final char[] cacheValue;
+    private int alternativesCount;
+    private int alternative;
+    private boolean stackOriginal;
 
     private State state = null;
 
@@ -45,16 +71,45 @@ public final class PhoneticFilter extends TokenFilter {
     private final PositionIncrementAttribute posAtt = addAttribute(PositionIncrementAttribute.class);
 
 
-    PhoneticFilter(TokenStream input, PhoneticEncoder encoder, SnowballProgram stemmer, int maxCodeLength, boolean replace) {
+    PhoneticFilter(TokenStream input, PhoneticEncoder encoder, StemmerPool stemmerPool, int maxCodeLength, boolean replace) {
+        this(input, encoder, stemmerPool, null, null, null, maxCodeLength, replace, false, 0);
+    }
+
+    PhoneticFilter(TokenStream input, PhoneticEncoder encoder, StemmerPool stemmerPool, StemLengthCache stemCache,
+                   PhoneticCodeCache cache, CodeDictionary dictionary, int maxCodeLength, boolean replace,
+                   boolean binaryOutput, int maxAlternatives) {
         super(input);
         this.encoder = encoder;
-        this.maxCodeLength = maxCodeLength;
         this.replace = replace;
-        this.stemmer = stemmer;
+        this.binaryOutput = binaryOutput;
+        this.maxAlternatives = maxAlternatives;
+        this.stemmerPool = stemmerPool;
+        this.stemCache = stemCache;
+        this.cache = cache;
+        this.dictionary = dictionary;
+        this.exchange = encoder.newExchange();
+        this.limitedInputBuffer = new LimitedLengthInputBuffer(new char[0], 0, maxCodeLength);
+        this.stemmedInputBuffer = new StemmedInputBuffer(new char[0], 0, 0, maxCodeLength);
+        // short codes take more chars once packed along with the marker
+        int codeCapacity = binaryOutput ? Math.max(maxCodeLength, PackedCodes.charsLength(maxCodeLength)) : maxCodeLength;
+        this.codeBuffer = new char[codeCapacity];
+        this.alternatives = new char[(maxAlternatives + 1) * codeCapacity];
+        this.encodedAlternatives = binaryOutput ? new char[(maxAlternatives + 1) * maxCodeLength] : alternatives;
+        this.alternativeOffsets = new int[maxAlternatives + 2];
+        this.cacheValue = new char[(maxAlternatives + 1) * (codeCapacity + 1)];
     }
 
     @Override
     public boolean incrementToken() throws IOException {
+        if (alternative < alternativesCount) {
+            restoreState(state);
+            int start = alternativeOffsets[alternative++];
+            termAtt.copyBuffer(alternatives, start, alternativeOffsets[alternative] - start);
+            if (alternative == alternativesCount && !stackOriginal) {
+                state = null;
+            }
+            return true;
+        }
         if (state != null) {
             restoreState(state);
             state = null;
@@ -70,49 +125,210 @@ public final class PhoneticFilter extends TokenFilter {
         if (replace) {
             termAttBuffer = termAtt.buffer();
         } else {
-            termAttBuffer = Arrays.copyOf(termAtt.buffer(), termAttLength);
+            // original term must stay intact for the stacked token
+            termAttBuffer = termCopy = ArrayUtil.grow(termCopy, termAttLength);
+            System.arraycopy(termAtt.buffer(), 0, termAttBuffer, 0, termAttLength);
         }
 
         CharacterUtils.toLowerCase(termAttBuffer, 0, termAttLength);
 
-        InputBuffer inputBuffer;
+        char[] code = codeBuffer;
+        int codeOffset = 0;
+        int codeLength;
+        alternative = alternativesCount = 0;
+        char[] cachedCode = cache != null ? cache.get(termAttBuffer, termAttLength) : null;
+        if (cachedCode != null) {
+            code = cachedCode;
+            if (maxAlternatives > 0) {
+                codeOffset = 1;
+                codeLength = cachedCode[0];
+                alternativesCount = readAlternatives(cachedCode, codeOffset + codeLength);
+            } else {
+                codeLength = cachedCode.length;
+            }
+        } else {
+            InputBuffer inputBuffer = prepareInput(termAttBuffer, termAttLength);
+            codeLength = encode(inputBuffer, termAttBuffer, termAttLength);
+            if (maxAlternatives > 0) {
+                inputBuffer.rewind();
+                alternativesCount = encodeAlternatives(inputBuffer, termAttBuffer, termAttLength, code, codeLength);
+            }
+            if (cache != null && maxAlternatives > 0) {
+                cache.put(termAttBuffer, termAttLength, cacheValue, writeCodes(codeLength));
+            } else if (cache != null) {
+                cache.put(termAttBuffer, termAttLength, codeBuffer, codeLength);
+            }
+        }
+
+        stackOriginal = !replace && codeLength > 0;
+        if (!stackOriginal && alternativesCount == 0) {
+            if (codeLength > 0) {
+                termAtt.copyBuffer(code, codeOffset, codeLength);
+            }
+            return true;
+        }
+
+        int origOffset = posAtt.getPositionIncrement();
+        posAtt.setPositionIncrement(0);
+        state = captureState();
+
+        posAtt.setPositionIncrement(origOffset);
+        if (codeLength > 0) {
+            termAtt.copyBuffer(code, codeOffset, codeLength);
+        }
+        return true;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        state = null;
+        alternative = alternativesCount = 0;
+        if (stemmerPool != null && stemmer == null) {
+            stemmer = stemmerPool.acquire();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
         if (stemmer != null) {
+            stemmerPool.release(stemmer);
+            stemmer = null;
+        }
+        super.close();
+    }
+
+    private InputBuffer prepareInput(char[] termAttBuffer, int termAttLength) {
+        if (stemmerPool != null) {
+            int stemmedLength = stemCache != null ? stemCache.getStemmedLength(termAttBuffer, termAttLength) : -1;
+            if (stemmedLength >= 0) {
+                // stem is a prefix of the term
+                return stemmedInputBuffer.reset(termAttBuffer, termAttLength, stemmedLength);
+            }
             stemmer.setCurrent(termAttBuffer, termAttLength);
             stemmer.stem();
-            inputBuffer = new StemmedInputBuffer(stemmer.getCurrentBuffer(), termAtt.length(),
-                    stemmer.getCurrentBufferLength(), maxCodeLength);
-        } else {
-            inputBuffer = new LimitedLengthInputBuffer(termAttBuffer, termAttLength, maxCodeLength);
+            // stemmer works in place unless it has to grow the buffer, which doesn't happen for russian endings
+            if (stemCache != null && stemmer.getCurrentBuffer() == termAttBuffer) {
+                stemCache.putStemmedLength(termAttBuffer, termAttLength, stemmer.getCurrentBufferLength());
+            }
+            return stemmedInputBuffer.reset(stemmer.getCurrentBuffer(), termAttLength,
+                    stemmer.getCurrentBufferLength());
+        }
+        return limitedInputBuffer.reset(termAttBuffer, termAttLength);
+    }
+
+    /**
+     * Encodes lowercased term into codeBuffer, precomputed codes are only looked up for unstemmed terms.
+     * In binary output mode the code is packed into chars in place.
+     *
+     * @return length of the code, or 0 if the term should be left intact
+     */
+    private int encode(InputBuffer inputBuffer, char[] termAttBuffer, int termAttLength) {
+        int codeLength = dictionary != null ? dictionary.lookup(termAttBuffer, 0, termAttLength, codeBuffer, 0) : -1;
+        if (codeLength < 0) {
+            codeLength = 0;
+            try {
+                codeLength = encoder.encode(inputBuffer, exchange, codeBuffer, 0);
+            } catch (Exception ignore) {
+            }
+        }
+
+        if (binaryOutput) {
+            // codes matching the input are packed as well, so that all the terms share the same form;
+            // codes which can't be packed (e.g. taken from a custom dictionary) fail the analysis
+            // rather than mixing text and packed codes in the same field
+            if (codeLength == 0)
+                return 0;
+            return PackedCodes.packChars(codeBuffer, 0, codeLength, codeBuffer, 0);
         }
 
-        Buffer outputBuffer = null;
+        if (isSameAsInput(inputBuffer, codeLength))
+            return 0;
+        return codeLength;
+    }
+
+    /**
+     * Encodes alternative codes of the term into alternatives skipping the ones which are emitted anyway.
+     * Alternatives are not looked up in the dictionary.
+     *
+     * @return number of alternative codes
+     */
+    private int encodeAlternatives(InputBuffer inputBuffer, char[] termAttBuffer, int termAttLength,
+                                   char[] code, int codeLength) {
+        int count;
         try {
-            outputBuffer = encoder.encode(inputBuffer);
+            count = encoder.encodeAlternatives(inputBuffer, exchange, maxAlternatives + 1, encodedAlternatives, alternativeOffsets);
         } catch (Exception ignore) {
+            return 0;
         }
 
-        if (outputBuffer == null || outputBuffer.getLength() == 0 || outputBuffer.equals(inputBuffer))
-            return true;
-
-        if (replace) {
-            if (outputBuffer.getLength() > 0) {
-                termAtt.copyBuffer(outputBuffer.getBuffer(), 0, outputBuffer.getLength());
+        int position = 0;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int start = alternativeOffsets[i];
+            int length = alternativeOffsets[i + 1] - start;
+            if (length == 0) {
+                continue;
+            }
+            if (binaryOutput) {
+                length = PackedCodes.packChars(encodedAlternatives, start, length, alternatives, position);
             } else {
-                termAtt.setEmpty();
+                System.arraycopy(alternatives, start, alternatives, position, length);
             }
-            return true;
+            // codes equal to the emitted code or the emitted original term are skipped
+            if (codeLength > 0 && Arrays.equals(alternatives, position, position + length, code, 0, codeLength)
+                    || (codeLength == 0 || !replace)
+                    && Arrays.equals(alternatives, position, position + length, termAttBuffer, 0, termAttLength)) {
+                continue;
+            }
+            alternativeOffsets[kept++] = position;
+            position += length;
         }
+        alternativeOffsets[kept] = position;
+        return kept;
+    }
 
-        int origOffset = posAtt.getPositionIncrement();
-        posAtt.setPositionIncrement(0);
-        state = captureState();
+    /**
+     * Writes the code followed by the alternatives into cacheValue, every code is prefixed by its length.
+     *
+     * @return length of the written value
+     */
+    private int writeCodes(int codeLength) {
+        cacheValue[0] = (char) codeLength;
+        System.arraycopy(codeBuffer, 0, cacheValue, 1, codeLength);
+        int position = 1 + codeLength;
+        for (int i = 0; i < alternativesCount; i++) {
+            int start = alternativeOffsets[i];
+            int length = alternativeOffsets[i + 1] - start;
+            cacheValue[position++] = (char) length;
+            System.arraycopy(alternatives, start, cacheValue, position, length);
+            position += length;
+        }
+        return position;
+    }
 
-        posAtt.setPositionIncrement(origOffset);
-        if (outputBuffer.getLength() > 0) {
-            termAtt.copyBuffer(outputBuffer.getBuffer(), 0, outputBuffer.getLength());
-        } else {
-            termAtt.setEmpty();
+    /**
+     * Reads the length-prefixed alternatives written by writeCodes into alternatives.
+     *
+     * @return number of alternative codes
+     */
+    private int readAlternatives(char[] value, int offset) {
+        int position = 0;
+        int count = 0;
+        while (offset < value.length) {
+            int length = value[offset++];
+            System.arraycopy(value, offset, alternatives, position, length);
+            alternativeOffsets[count++] = position;
+            offset += length;
+            position += length;
         }
-        return true;
+        alternativeOffsets[count] = position;
+        return count;
+    }
+
+    private boolean isSameAsInput(InputBuffer inputBuffer, int codeLength) {
+        int offset = inputBuffer.getOffset();
+        return codeLength == inputBuffer.getLength()
+                && Arrays.equals(codeBuffer, 0, codeLength, inputBuffer.getBuffer(), offset, offset + codeLength);
     }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.dictionary.CodeDictionary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.papahigh.phonetic.phoneme.russian.RussianPhonemeExchange.FACTORY;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianPhonemeRules.CONSONANTS;
+import static com.github.papahigh.phonetic.phoneme.russian.RussianPhonemeRules.VOWELS;
+
+
+/**
+ * Node level registry of phonetic encoders and code caches which are shared by the filters with identical settings.
+ * Sharing encoders keeps a single instance per encoding settings on the node no matter how many indices use them,
+ * sharing caches helps e.g. search analyzers of many indices which analyze the same popular terms over and over.
+ * Stemmers are stateless between the terms, so all the stemming filters on the node draw them from a single pool,
+ * stem caches are shared regardless of the encoding settings since stems depend on the term only.
+ * Code dictionaries are mapped once per file version: a file which was modified or resized since it was mapped
+ * is mapped anew for the filters created afterwards, along with dropping the node caches of the former codes.
+ * The former mapping stays with the filters which use it and is released once they are gone,
+ * the current ones are released when the registry is closed along with the plugin.
+ * Hit ratio stats of the shared caches, as well as the filter scope caches registered along with their filter,
+ * are logged at debug level by {@link #logCacheStats()}. Filter scope caches are held weakly, so they are gone
+ * from the stats along with their filter.
+ * <p>
+ * This class is thread safe.
+ */
+public final class PhoneticRegistry implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(PhoneticRegistry.class);
+
+    private final ConcurrentHashMap<String, PhoneticEncoder> encoders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PhoneticCodeCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StemLengthCache> stemCaches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, MappedDictionary> dictionaries = new ConcurrentHashMap<>();
+    private final Map<TermCache<?>, String> filterCaches = Collections.synchronizedMap(new WeakHashMap<>());
+    private final StemmerPool stemmerPool;
+
+
+    /**
+     * @param nodeSettings settings of the node, the number of its processors bounds the number of idle stemmers
+     */
+    public PhoneticRegistry(Settings nodeSettings) {
+        // enough idle stemmers for the indexing and search threads of the node
+        this(2 * EsExecutors.numberOfProcessors(nodeSettings));
+    }
+
+    /**
+     * @param stemmerPoolCapacity maximum number of idle stemmers kept in the pool, 0 disables stemmers reuse
+     */
+    public PhoneticRegistry(int stemmerPoolCapacity) {
+        this.stemmerPool = new StemmerPool(stemmerPoolCapacity);
+    }
+
+    /**
+     * @param vowelsMode    encoding mode for vowels
+     * @param maxCodeLength maximum length of the phonetic code
+     * @return encoder shared by all the filters with the same encoding settings
+     */
+    PhoneticEncoder getEncoder(VowelsMode vowelsMode, int maxCodeLength) {
+        return encoders.computeIfAbsent(encoderKey(vowelsMode, maxCodeLength),
+                k -> new PhoneticEncoder(FACTORY, CONSONANTS, VOWELS, vowelsMode, maxCodeLength));
+    }
+
+
+    /**
+     * @param key      settings affecting the codes cached for a term
+     * @param size     maximum number of cached terms
+     * @param eviction cache eviction policy
+     * @return cache shared by all the filters with the same key, size and eviction policy
+     */
+    PhoneticCodeCache getCache(String key, int size, TermCache.Eviction eviction) {
+        return caches.computeIfAbsent(key + ",cache_size=" + size + ",cache_eviction=" + eviction,
+                k -> new PhoneticCodeCache(size, eviction));
+    }
+
+    /**
+     * @param size     maximum number of cached terms
+     * @param eviction cache eviction policy
+     * @return stem cache shared by all the stemming filters with the same size and eviction policy
+     */
+    StemLengthCache getStemCache(int size, TermCache.Eviction eviction) {
+        return stemCaches.computeIfAbsent("stem_cache_size=" + size + ",cache_eviction=" + eviction,
+                k -> new StemLengthCache(size, eviction));
+    }
+
+    /**
+     * @param path code dictionary file
+     * @return dictionary shared by all the filters referencing the same version of the file
+     * @throws IOException if the file can't be read or it isn't a code dictionary
+     */
+    CodeDictionary getDictionary(Path path) throws IOException {
+        Path file = dictionaryPath(path);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        try {
+            return dictionaries.compute(file, (p, mapped) -> {
+                if (mapped != null && mapped.isVersionOf(attributes)) {
+                    return mapped;
+                }
+                if (mapped != null) {
+                    // codes of the former version must not be served to the filters using the new one
+                    // (cache keys go on with the cache size after the dictionary)
+                    String dictionaryKey = dictionaryKey(p) + ",";
+                    caches.keySet().removeIf(key -> key.contains(dictionaryKey));
+                }
+                try {
+                    return new MappedDictionary(CodeDictionary.open(p), attributes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).dictionary;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @param name  name of the filter the cache belongs to, e.g. [index][filter]
+     * @param cache filter scope cache to be logged along with the shared ones
+     */
+    void registerFilterCache(String name, TermCache<?> cache) {
+        filterCaches.put(cache, name);
+    }
+
+    /**
+     * @return pool of stemmers shared by all the stemming filters on the node
+     */
+    public StemmerPool getStemmerPool() {
+        return stemmerPool;
+    }
+
+    /**
+     * @return shared encoders keyed by their encoding settings
+     */
+    public Map<String, PhoneticEncoder> getEncoders() {
+        return Collections.unmodifiableMap(encoders);
+    }
+
+    /**
+     * @return shared caches (along with their hit ratio stats) keyed by the filter settings
+     */
+    public Map<String, PhoneticCodeCache> getCaches() {
+        return Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * @return shared stem caches (along with their hit ratio stats) keyed by their size and eviction policy
+     */
+    public Map<String, StemLengthCache> getStemCaches() {
+        return Collections.unmodifiableMap(stemCaches);
+    }
+
+    /**
+     * Logs hit ratio stats of the shared and filter scope caches at debug level, e.g. to tune their size and scope.
+     */
+    public void logCacheStats() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        caches.forEach((key, cache) -> logger.debug("node cache [{}]: {}", key, cache));
+        stemCaches.forEach((key, cache) -> logger.debug("node stem cache [{}]: {}", key, cache));
+        synchronized (filterCaches) {
+            filterCaches.forEach((cache, name) -> logger.debug("filter cache {}: {}", name, cache));
+        }
+    }
+
+    /**
+     * Releases the shared code dictionaries.
+     */
+    @Override
+    public void close() {
+        dictionaries.values().forEach(mapped -> mapped.dictionary.close());
+        dictionaries.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneticRegistry{" +
+                "encoders=" + encoders.keySet() +
+                ", caches=" + caches +
+                ", stemCaches=" + stemCaches +
+                ", dictionaries=" + dictionaries.keySet() +
+                ", stemmerPool=" + stemmerPool +
+                '}';
+    }
+
+    static String encoderKey(VowelsMode vowelsMode, int maxCodeLength) {
+        return String.format(Locale.ROOT, "vowels=%s,max_code_len=%d", vowelsMode, maxCodeLength);
+    }
+
+    /**
+     * @param path code dictionary file
+     * @return part of the cache key identifying the dictionary the cached codes come from
+     */
+    static String dictionaryKey(Path path) {
+        return String.format(Locale.ROOT, ",code_dictionary_path=%s", dictionaryPath(path));
+    }
+
+    private static Path dictionaryPath(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+
+    private static final class MappedDictionary {
+
+        private final CodeDictionary dictionary;
+        private final FileTime lastModifiedTime;
+        private final long size;
+
+        MappedDictionary(CodeDictionary dictionary, BasicFileAttributes attributes) {
+            this.dictionary = dictionary;
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.size = attributes.size();
+        }
+
+        boolean isVersionOf(BasicFileAttributes attributes) {
+            return lastModifiedTime.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+    }
+}
@@ -17,15 +17,15 @@ package org.elasticsearch.index.analysis;
 
 import com.github.papahigh.phonetic.PhoneticEncoder;
 import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.dictionary.CodeDictionary;
 import org.apache.lucene.analysis.TokenStream;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.IndexSettings;
-import org.tartarus.snowball.ext.RussianStemmer;
 
-import static com.github.papahigh.phonetic.phoneme.russian.RussianPhonemeExchange.FACTORY;
-import static com.github.papahigh.phonetic.phoneme.russian.RussianPhonemeRules.CONSONANTS;
-import static com.github.papahigh.phonetic.phoneme.russian.RussianPhonemeRules.VOWELS;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
 
 
 public class RussianPhoneticTokenFilterFactory extends AbstractTokenFilterFactory {
@@ -34,12 +34,24 @@ public class RussianPhoneticTokenFilterFactory extends AbstractTokenFilterFactor
     private final boolean enableStemmer;
     private final int maxCodeLength;
     private final boolean replace;
+    private final boolean binaryOutput;
+    private final int maxAlternatives;
+    private final PhoneticCodeCache cache;
+    private final CodeDictionary dictionary;
+    private final StemmerPool stemmerPool;
+    private final StemLengthCache stemCache;
 
     public RussianPhoneticTokenFilterFactory(IndexSettings indexSettings, Environment environment, String name, Settings settings) {
+        this(indexSettings, environment, name, settings, new PhoneticRegistry(indexSettings.getNodeSettings()));
+    }
+
+    public RussianPhoneticTokenFilterFactory(IndexSettings indexSettings, Environment environment, String name, Settings settings,
+                                             PhoneticRegistry registry) {
         super(indexSettings, name, settings);
         this.replace = settings.getAsBoolean("replace", true);
         this.maxCodeLength = settings.getAsInt("max_code_len", 8);
         this.enableStemmer = settings.getAsBoolean("enable_stemmer", false);
+        this.stemmerPool = enableStemmer ? registry.getStemmerPool() : null;
         VowelsMode vowelsMode;
         String vowelsModeName = settings.get("vowels", "encode_first");
         if ("ENCODE_ALL".equalsIgnoreCase(vowelsModeName)) {
@@ -51,11 +63,100 @@ public class RussianPhoneticTokenFilterFactory extends AbstractTokenFilterFactor
         } else {
             throw new IllegalArgumentException("No matching vowels mode [" + vowelsModeName + "] found for Russian Phonetic Encoder");
         }
-        this.encoder = new PhoneticEncoder(FACTORY, CONSONANTS, VOWELS, vowelsMode, maxCodeLength);
+        String outputName = settings.get("output", "text");
+        if ("TEXT".equalsIgnoreCase(outputName)) {
+            this.binaryOutput = false;
+        } else if ("BINARY".equalsIgnoreCase(outputName)) {
+            this.binaryOutput = true;
+        } else {
+            throw new IllegalArgumentException("No matching output mode [" + outputName + "] found for Russian Phonetic Encoder");
+        }
+        this.maxAlternatives = settings.getAsInt("max_alternatives", 0);
+        if (maxAlternatives < 0) {
+            throw new IllegalArgumentException("Illegal max alternatives [" + maxAlternatives + "] for Russian Phonetic Encoder");
+        }
+        this.encoder = registry.getEncoder(vowelsMode, maxCodeLength);
+        String dictionaryPath = settings.get("code_dictionary_path");
+        if (dictionaryPath != null) {
+            if (enableStemmer) {
+                throw new IllegalArgumentException("Code dictionary can't be used along with stemmer for Russian Phonetic Encoder");
+            }
+            Path path = environment.configFile().resolve(dictionaryPath);
+            try {
+                this.dictionary = registry.getDictionary(path);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Unable to load code dictionary [" + path + "] for Russian Phonetic Encoder", e);
+            }
+            this.dictionary.ensureCompatible(encoder);
+        } else {
+            this.dictionary = null;
+        }
+        int cacheSize = settings.getAsInt("cache_size", 0);
+        String cacheScope = settings.get("cache_scope", "filter");
+        TermCache.Eviction cacheEviction = TermCache.Eviction.fromString(settings.get("cache_eviction", "lru"));
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Illegal cache size [" + cacheSize + "] for Russian Phonetic Encoder");
+        } else if (cacheSize == 0) {
+            this.cache = null;
+        } else if ("FILTER".equalsIgnoreCase(cacheScope)) {
+            this.cache = new PhoneticCodeCache(cacheSize, cacheEviction);
+            registry.registerFilterCache(filterName(indexSettings, name), cache);
+        } else if ("NODE".equalsIgnoreCase(cacheScope)) {
+            String key = PhoneticRegistry.encoderKey(vowelsMode, maxCodeLength) + String.format(Locale.ROOT,
+                    ",enable_stemmer=%b,replace=%b,output=%s,max_alternatives=%d",
+                    enableStemmer, replace, binaryOutput ? "binary" : "text", maxAlternatives)
+                    + (dictionaryPath != null ? PhoneticRegistry.dictionaryKey(environment.configFile().resolve(dictionaryPath)) : "");
+            this.cache = registry.getCache(key, cacheSize, cacheEviction);
+        } else {
+            throw new IllegalArgumentException("No matching cache scope [" + cacheScope + "] found for Russian Phonetic Encoder");
+        }
+        int stemCacheSize = settings.getAsInt("stem_cache_size", 0);
+        if (stemCacheSize < 0) {
+            throw new IllegalArgumentException("Illegal stem cache size [" + stemCacheSize + "] for Russian Phonetic Encoder");
+        } else if (stemCacheSize == 0) {
+            this.stemCache = null;
+        } else if (!enableStemmer) {
+            throw new IllegalArgumentException("Stem cache can't be used without stemmer for Russian Phonetic Encoder");
+        } else if ("FILTER".equalsIgnoreCase(cacheScope)) {
+            this.stemCache = new StemLengthCache(stemCacheSize, cacheEviction);
+            registry.registerFilterCache(filterName(indexSettings, name), stemCache);
+        } else if ("NODE".equalsIgnoreCase(cacheScope)) {
+            this.stemCache = registry.getStemCache(stemCacheSize, cacheEviction);
+        } else {
+            throw new IllegalArgumentException("No matching cache scope [" + cacheScope + "] found for Russian Phonetic Encoder");
+        }
     }
 
     @Override
     public TokenStream create(TokenStream tokenStream) {
-        return new PhoneticFilter(tokenStream, encoder, enableStemmer ? new RussianStemmer() : null, maxCodeLength, replace);
+        return new PhoneticFilter(tokenStream, encoder, stemmerPool, stemCache, cache, dictionary,
+                maxCodeLength, replace, binaryOutput, maxAlternatives);
+    }
+
+    static String filterName(IndexSettings indexSettings, String name) {
+        return "[" + indexSettings.getIndex().getName() + "][" + name + "]";
+    }
+
+    /**
+     * @return encoder of this filter, shared by all filters with the same encoding settings on the node
+     */
+    public PhoneticEncoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * @return encode cache shared by all streams of this filter (or by all filters with the same settings
+     * on the node when cache scope is node), or null if caching is disabled
+     */
+    public PhoneticCodeCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return stem cache shared by all streams of this filter (or by all stemming filters on the node
+     * when cache scope is node), or null if stem caching is disabled
+     */
+    public StemLengthCache getStemCache() {
+        return stemCache;
     }
 }
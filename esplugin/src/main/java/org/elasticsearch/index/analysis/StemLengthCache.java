@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+
+/**
+ * Bounded cache of stemmed lengths keyed by lowercased terms, see {@link TermCache} for the table layout and eviction.
+ * <p>
+ * Russian stemmer only removes the endings of a term, so the stem is always a prefix of the term
+ * and a single int is enough to skip stemming of a repeated term.
+ * <p>
+ * This class is thread safe.
+ */
+public final class StemLengthCache extends TermCache<Integer> {
+
+    public StemLengthCache(int size, Eviction eviction) {
+        super(size, eviction);
+    }
+
+
+    /**
+     * @param term   lowercased term chars
+     * @param length number of valid chars in term
+     * @return cached stemmed length, or -1 if the term isn't cached
+     */
+    int getStemmedLength(char[] term, int length) {
+        Integer stemmedLength = get(term, length);
+        return stemmedLength != null ? stemmedLength : -1;
+    }
+
+    /**
+     * @param term          lowercased term chars
+     * @param length        number of valid chars in term
+     * @param stemmedLength length of the stem which is a prefix of the term
+     */
+    void putStemmedLength(char[] term, int length, int stemmedLength) {
+        // stems are shorter than 128 chars in practice, so boxing takes the lengths from the Integer cache
+        put(term, length, stemmedLength);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import org.tartarus.snowball.SnowballProgram;
+import org.tartarus.snowball.ext.RussianStemmer;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bounded pool of idle Russian stemmers which are reused by the filter streams instead of creating a new stemmer per stream.
+ * <p>
+ * A stream acquires the stemmer on reset and releases it on close, so the number of stemmers in use
+ * never exceeds the number of concurrently consumed streams. Stemmers are created on demand when the pool is empty
+ * and dropped on release when the pool is full, thus the capacity only bounds the number of idle stemmers.
+ * <p>
+ * This class is thread safe.
+ */
+public final class StemmerPool {
+
+    private final ArrayBlockingQueue<SnowballProgram> idle;
+    private final int capacity;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+
+    public StemmerPool(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Illegal stemmer pool capacity [%d]", capacity));
+        }
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.capacity = capacity;
+    }
+
+
+    /**
+     * @return idle stemmer from the pool or a new one if the pool is empty
+     */
+    SnowballProgram acquire() {
+        SnowballProgram stemmer = idle.poll();
+        if (stemmer != null) {
+            reused.increment();
+            return stemmer;
+        }
+        created.increment();
+        return new RussianStemmer();
+    }
+
+    /**
+     * Returns the stemmer to the pool, it is dropped if the pool is full.
+     *
+     * @param stemmer stemmer acquired from this pool which is not used anymore
+     */
+    void release(SnowballProgram stemmer) {
+        if (capacity > 0) {
+            idle.offer(stemmer);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public long getReused() {
+        return reused.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "StemmerPool{" +
+                "capacity=" + capacity +
+                ", idle=" + getIdle() +
+                ", created=" + getCreated() +
+                ", reused=" + getReused() +
+                '}';
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 Nikolay Papakha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.index.analysis;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bounded cache of values keyed by lowercased terms.
+ * <p>
+ * Entries are immutable and kept in a two-way set associative table,
+ * so lookups and updates are lock-free and concurrent indexing threads don't contend.
+ * Capacity is the requested size rounded up to a power of two.
+ * Eviction happens within a set of two entries according to the configured policy,
+ * lookups never move entries around.
+ * <p>
+ * This class is thread safe.
+ *
+ * @param <V> type of the cached values
+ */
+public abstract class TermCache<V> {
+
+    public enum Eviction {
+        /**
+         * Older entry of a set which was hit since it became the older one is kept in place of the newer one
+         * when a new entry comes in, which approximates LRU without reordering the set on hits
+         * (a hit only marks the entry once).
+         */
+        LRU,
+        /**
+         * The older entry of a set is evicted regardless of hits.
+         */
+        FIFO;
+
+        public static Eviction fromString(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("No matching cache eviction policy [" + name + "] found for Russian Phonetic Encoder");
+            }
+        }
+    }
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final AtomicReferenceArray<Entry<V>> table;
+    private final int setMask;
+    private final Eviction eviction;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+    TermCache(int size, Eviction eviction) {
+        if (size < 1) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Illegal cache size [%d]", size));
+        }
+        if (size > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "Cache size [%d] exceeds [%d]", size, MAXIMUM_CAPACITY));
+        }
+        int sets = Math.max(1, ceilingPowerOfTwo(size) >>> 1);
+        this.table = new AtomicReferenceArray<>(sets << 1);
+        this.setMask = sets - 1;
+        this.eviction = eviction;
+    }
+
+
+    /**
+     * @param term   lowercased term chars
+     * @param length number of valid chars in term
+     * @return cached value, or null if the term isn't cached
+     */
+    V get(char[] term, int length) {
+        int hash = hash(term, length);
+        int slot = (hash & setMask) << 1;
+
+        Entry<V> newer = table.get(slot);
+        if (newer != null && newer.matches(hash, term, length)) {
+            hits.increment();
+            return newer.value;
+        }
+
+        Entry<V> older = table.get(slot + 1);
+        if (older != null && older.matches(hash, term, length)) {
+            // read before write, so that repeated hits don't write to the shared entry
+            if (eviction == Eviction.LRU && !older.referenced) {
+                older.referenced = true;
+            }
+            hits.increment();
+            return older.value;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @param term   lowercased term chars
+     * @param length number of valid chars in term
+     * @param value  value to cache, it's not copied
+     */
+    void put(char[] term, int length, V value) {
+        int hash = hash(term, length);
+        int slot = (hash & setMask) << 1;
+        Entry<V> entry = new Entry<>(hash, Arrays.copyOf(term, length), value);
+        Entry<V> kept = table.get(slot);
+        Entry<V> older = table.get(slot + 1);
+        if (eviction == Eviction.LRU && older != null && older.referenced) {
+            kept = older;
+        }
+        if (kept != null) {
+            kept.referenced = false;
+        }
+        table.set(slot + 1, kept);
+        table.set(slot, entry);
+    }
+
+    public int getCapacity() {
+        return table.length();
+    }
+
+    public Eviction getEviction() {
+        return eviction;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return share of lookups which hit the cache, or 0 if there were no lookups yet
+     */
+    public double getHitRatio() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "capacity=" + getCapacity() +
+                ", eviction=" + eviction +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", hitRatio=" + String.format(Locale.ROOT, "%.3f", getHitRatio()) +
+                '}';
+    }
+
+    private static int ceilingPowerOfTwo(int size) {
+        return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static int hash(char[] term, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + term[i];
+        }
+        // spread higher bits since only the lower ones pick a set
+        return hash ^ (hash >>> 16);
+    }
+
+
+    private static final class Entry<V> {
+
+        final int hash;
+        final char[] term;
+        final V value;
+        // set by the lookups which hit the entry while it's the older one of its set
+        volatile boolean referenced;
+
+        Entry(int hash, char[] term, V value) {
+            this.hash = hash;
+            this.term = term;
+            this.value = value;
+        }
+
+        boolean matches(int hash, char[] term, int length) {
+            return this.hash == hash && Arrays.equals(this.term, 0, this.term.length, term, 0, length);
+        }
+    }
+}
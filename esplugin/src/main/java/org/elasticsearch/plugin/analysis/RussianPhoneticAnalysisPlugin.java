@@ -15,21 +15,87 @@
  */
 package org.elasticsearch.plugin.analysis;
 
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.analysis.PhoneticRegistry;
 import org.elasticsearch.index.analysis.RussianPhoneticTokenFilterFactory;
 import org.elasticsearch.index.analysis.TokenFilterFactory;
 import org.elasticsearch.indices.analysis.AnalysisModule;
 import org.elasticsearch.plugins.AnalysisPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.ResourceWatcherService;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 
 
 public class RussianPhoneticAnalysisPlugin extends Plugin implements AnalysisPlugin {
 
+    /**
+     * Interval of logging the cache hit ratio stats at debug level, 0 disables the logging.
+     */
+    public static final Setting<TimeValue> CACHE_STATS_INTERVAL = Setting.timeSetting("russian_phonetic.cache_stats_interval",
+            TimeValue.timeValueMinutes(1), TimeValue.ZERO, Setting.Property.NodeScope);
+
+    // plugin is instantiated once per node
+    private final PhoneticRegistry registry;
+    private final TimeValue cacheStatsInterval;
+    private volatile Scheduler.Cancellable cacheStatsLogging;
+
+    public RussianPhoneticAnalysisPlugin(Settings settings) {
+        this.registry = new PhoneticRegistry(settings);
+        this.cacheStatsInterval = CACHE_STATS_INTERVAL.get(settings);
+    }
+
+    @Override
+    public List<Setting<?>> getSettings() {
+        return singletonList(CACHE_STATS_INTERVAL);
+    }
+
+    @Override
+    public Collection<Object> createComponents(Client client, ClusterService clusterService, ThreadPool threadPool,
+                                               ResourceWatcherService resourceWatcherService, ScriptService scriptService,
+                                               NamedXContentRegistry xContentRegistry, Environment environment,
+                                               NodeEnvironment nodeEnvironment, NamedWriteableRegistry namedWriteableRegistry) {
+        if (cacheStatsInterval.millis() > 0) {
+            cacheStatsLogging = threadPool.scheduleWithFixedDelay(registry::logCacheStats, cacheStatsInterval, ThreadPool.Names.GENERIC);
+        }
+        return emptyList();
+    }
+
     @Override
     public Map<String, AnalysisModule.AnalysisProvider<TokenFilterFactory>> getTokenFilters() {
-        return singletonMap("russian_phonetic", RussianPhoneticTokenFilterFactory::new);
+        return singletonMap("russian_phonetic", (indexSettings, environment, name, settings) ->
+                new RussianPhoneticTokenFilterFactory(indexSettings, environment, name, settings, registry));
+    }
+
+    /**
+     * @return node level registry holding the encoders and caches shared across indices
+     */
+    public PhoneticRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        if (cacheStatsLogging != null) {
+            cacheStatsLogging.cancel();
+        }
+        registry.close();
     }
 }
@@ -15,34 +15,62 @@
  */
 package org.elasticsearch.index.analysis;
 
+import com.github.papahigh.phonetic.PhoneticEncoder;
+import com.github.papahigh.phonetic.VowelsMode;
+import com.github.papahigh.phonetic.dictionary.CodeDictionary;
+import com.github.papahigh.phonetic.dictionary.CodeDictionaryWriter;
+import com.github.papahigh.phonetic.phoneme.russian.PackedCodes;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.lucene.analysis.BaseTokenStreamTestCase;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.plugin.analysis.RussianPhoneticAnalysisPlugin;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.MockLogAppender;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Before;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.hamcrest.Matchers.instanceOf;
 
 
 public class SimpleRussianPhoneticAnalysisTests extends ESTestCase {
 
+    private RussianPhoneticAnalysisPlugin plugin;
     private TestAnalysis analysis;
 
     @Before
     public void setup() throws IOException {
+        this.plugin = new RussianPhoneticAnalysisPlugin(Settings.EMPTY);
+        this.analysis = createTestAnalysis("test");
+    }
+
+    private TestAnalysis createTestAnalysis(String indexName) throws IOException {
+        return createTestAnalysis(indexName, plugin);
+    }
+
+    private TestAnalysis createTestAnalysis(String indexName, RussianPhoneticAnalysisPlugin plugin) throws IOException {
         String yaml = "/org/elasticsearch/index/analysis/russian_phonetic.yml";
         Settings settings = Settings.builder().loadFromStream(yaml, getClass().getResourceAsStream(yaml), false)
                 .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
                 .build();
-        this.analysis = createTestAnalysis(new Index("test", "_na_"), settings, new RussianPhoneticAnalysisPlugin());
+        return createTestAnalysis(new Index(indexName, "_na_"), settings, plugin);
     }
 
     public void testRussianPhoneticTokenFilterMaxLength4() throws IOException {
@@ -80,4 +108,282 @@ public class SimpleRussianPhoneticAnalysisTests extends ESTestCase {
 
         BaseTokenStreamTestCase.assertTokenStreamContents(filterFactory.create(tokenizer), expected);
     }
+
+    public void testRussianPhoneticTokenFilterMaxLength14WithStemCache() throws IOException {
+        TokenFilterFactory filterFactory = analysis.tokenFilter.get("russian_phonetic_max_length14_with_stemmer_and_stem_cache");
+
+        assertThat(filterFactory, instanceOf(RussianPhoneticTokenFilterFactory.class));
+
+        StemLengthCache stemCache = ((RussianPhoneticTokenFilterFactory) filterFactory).getStemCache();
+        assertNotNull(stemCache);
+
+        // cached stems must produce the same codes as stemmed terms
+        String[] expected = new String[]{"с2ш", "эщ2", "эт", "м2хк", "фр1нц3ск", "б3л1к", "д1", "в2п", "ч2"};
+        for (int i = 0; i < 2; i++) {
+            Tokenizer tokenizer = new WhitespaceTokenizer();
+            tokenizer.setReader(new StringReader(
+                    "съешь ещё этих мягких французских булок, да выпей чаю"));
+            BaseTokenStreamTestCase.assertTokenStreamContents(filterFactory.create(tokenizer), expected);
+        }
+
+        assertEquals(expected.length, stemCache.getMisses());
+        assertEquals(expected.length, stemCache.getHits());
+        assertEquals(0.5, stemCache.getHitRatio(), 0.0);
+    }
+
+    public void testRussianPhoneticTokenFilterMaxLength8WithCache() throws IOException {
+        TokenFilterFactory filterFactory = analysis.tokenFilter.get("russian_phonetic_max_length8_with_cache");
+
+        assertThat(filterFactory, instanceOf(RussianPhoneticTokenFilterFactory.class));
+
+        PhoneticCodeCache cache = ((RussianPhoneticTokenFilterFactory) filterFactory).getCache();
+        assertNotNull(cache);
+
+        String[] expected = new String[]{
+                "с2ш", "эщ2", "эт2х", "м2хк2х", "фр1нц3ск", "б3л1к", "д1", "в2п2й", "ч23"
+        };
+        for (int i = 0; i < 2; i++) {
+            Tokenizer tokenizer = new WhitespaceTokenizer();
+            tokenizer.setReader(new StringReader(
+                    "съешь ещё этих мягких французских булок, да выпей чаю"));
+            BaseTokenStreamTestCase.assertTokenStreamContents(filterFactory.create(tokenizer), expected);
+        }
+
+        assertEquals(expected.length, cache.getMisses());
+        assertEquals(expected.length, cache.getHits());
+    }
+
+    public void testPhoneticCodeCacheCapacityAndEviction() {
+        // capacity is rounded up, so that the cache holds at least the requested number of codes
+        assertEquals(1024, new PhoneticCodeCache(1000, TermCache.Eviction.LRU).getCapacity());
+        assertEquals(1024, new PhoneticCodeCache(1024, TermCache.Eviction.LRU).getCapacity());
+        assertEquals(2, new PhoneticCodeCache(1, TermCache.Eviction.LRU).getCapacity());
+
+        // cache of two entries is a single set, the older entry hit before the next put survives with LRU only
+        for (TermCache.Eviction eviction : TermCache.Eviction.values()) {
+            PhoneticCodeCache cache = new PhoneticCodeCache(2, eviction);
+            putCode(cache, "дуб", "д3п");
+            putCode(cache, "дом", "д1м");
+            assertEquals("д3п", getCode(cache, "дуб"));
+            putCode(cache, "кот", "к1т");
+
+            assertEquals("к1т", getCode(cache, "кот"));
+            if (eviction == TermCache.Eviction.LRU) {
+                assertEquals("д3п", getCode(cache, "дуб"));
+                assertNull(getCode(cache, "дом"));
+            } else {
+                assertEquals("д1м", getCode(cache, "дом"));
+                assertNull(getCode(cache, "дуб"));
+            }
+        }
+    }
+
+    public void testStemLengthCacheCapacityAndLookup() {
+        // stem cache is laid out the same way as the code cache
+        assertEquals(1024, new StemLengthCache(1000, TermCache.Eviction.LRU).getCapacity());
+
+        StemLengthCache cache = new StemLengthCache(2, TermCache.Eviction.FIFO);
+        char[] term = "мягких".toCharArray();
+        assertEquals(-1, cache.getStemmedLength(term, term.length));
+        cache.putStemmedLength(term, term.length, 4);
+        assertEquals(4, cache.getStemmedLength(term, term.length));
+        assertEquals(-1, cache.getStemmedLength(term, 2));
+    }
+
+    public void testRussianPhoneticTokenFilterMaxLength8Binary() throws IOException {
+        TokenFilterFactory filterFactory = analysis.tokenFilter.get("russian_phonetic_max_length8_binary");
+
+        assertThat(filterFactory, instanceOf(RussianPhoneticTokenFilterFactory.class));
+
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(
+                "съешь ещё этих мягких французских булок, да выпей чаю"));
+        BaseTokenStreamTestCase.assertTokenStreamContents(filterFactory.create(tokenizer), new String[]{
+                packed("с2ш"), packed("эщ2"), packed("эт2х"), packed("м2хк2х"), packed("фр1нц3ск"),
+                packed("б3л1к"), packed("д1"), packed("в2п2й"), packed("ч23")
+        });
+    }
+
+    public void testRussianPhoneticTokenFilterMaxLength8BinaryWithNumbers() throws IOException {
+        TokenFilterFactory filterFactory = analysis.tokenFilter.get("russian_phonetic_max_length8_binary");
+
+        // numbers are left intact, so packed codes must never clash with them
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader("к 0 л 4 м 8 кот 20"));
+        String[] expected = new String[]{packed("к"), "0", packed("л"), "4", packed("м"), "8", packed("к1т"), "20"};
+        for (String code : new String[]{"к", "л", "м", "к1т"}) {
+            assertEquals(PackedCodes.CHARS_MARKER, packed(code).charAt(0));
+        }
+
+        BaseTokenStreamTestCase.assertTokenStreamContents(filterFactory.create(tokenizer), expected);
+    }
+
+    public void testRussianPhoneticTokenFilterMaxLength8Alternatives() throws IOException {
+        TokenFilterFactory filterFactory = analysis.tokenFilter.get("russian_phonetic_max_length8_alternatives");
+
+        assertThat(filterFactory, instanceOf(RussianPhoneticTokenFilterFactory.class));
+
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader("Королёв съел его дуб, да Иосиф"));
+        String[] expected = new String[]{
+                "к1р1л1ф", "к1р1л2ф", "к1р1л1в", "к1р1л2в", "с2л", "эв1", "эг1",
+                "д3п", "д3б", "д1", "эс2ф", "ас2ф"
+        };
+        int[] positionIncrements = new int[]{1, 0, 0, 0, 1, 1, 0, 1, 0, 1, 1, 0};
+
+        BaseTokenStreamTestCase.assertTokenStreamContents(filterFactory.create(tokenizer), expected, positionIncrements);
+    }
+
+    public void testRussianPhoneticTokenFilterWithNodeCache() throws IOException {
+        TokenFilterFactory filterFactory = analysis.tokenFilter.get("russian_phonetic_max_length8_with_node_cache");
+        TokenFilterFactory otherIndexFilterFactory =
+                createTestAnalysis("other").tokenFilter.get("russian_phonetic_max_length8_with_node_cache");
+        TokenFilterFactory otherSettingsFilterFactory = analysis.tokenFilter.get("russian_phonetic_max_length4_with_node_cache");
+
+        assertThat(filterFactory, instanceOf(RussianPhoneticTokenFilterFactory.class));
+
+        // indices with identical filter settings share the cache
+        PhoneticCodeCache cache = ((RussianPhoneticTokenFilterFactory) filterFactory).getCache();
+        assertSame(cache, ((RussianPhoneticTokenFilterFactory) otherIndexFilterFactory).getCache());
+        assertNotSame(cache, ((RussianPhoneticTokenFilterFactory) otherSettingsFilterFactory).getCache());
+        assertEquals(2, plugin.getRegistry().getCaches().size());
+
+        String[] expected = new String[]{
+                "с2ш", "эщ2", "эт2х", "м2хк2х", "фр1нц3ск", "б3л1к", "д1", "в2п2й", "ч23"
+        };
+        for (TokenFilterFactory factory : new TokenFilterFactory[]{filterFactory, otherIndexFilterFactory}) {
+            Tokenizer tokenizer = new WhitespaceTokenizer();
+            tokenizer.setReader(new StringReader(
+                    "съешь ещё этих мягких французских булок, да выпей чаю"));
+            BaseTokenStreamTestCase.assertTokenStreamContents(factory.create(tokenizer), expected);
+        }
+
+        assertEquals(expected.length, cache.getMisses());
+        assertEquals(expected.length, cache.getHits());
+        assertEquals(0.5, cache.getHitRatio(), 0.0);
+    }
+
+    public void testRussianPhoneticEncodersAreShared() throws IOException {
+        TestAnalysis otherAnalysis = createTestAnalysis("other");
+
+        // filters with the same vowels mode and max code length share the encoder within the node
+        PhoneticEncoder encoder = getEncoder(analysis, "russian_phonetic_max_length8");
+        assertSame(encoder, getEncoder(otherAnalysis, "russian_phonetic_max_length8"));
+        assertSame(encoder, getEncoder(analysis, "russian_phonetic_max_length8_with_cache"));
+        assertSame(encoder, getEncoder(analysis, "russian_phonetic_max_length8_binary"));
+        assertNotSame(encoder, getEncoder(analysis, "russian_phonetic_max_length4"));
+        assertSame(getEncoder(analysis, "russian_phonetic_max_length4"), getEncoder(otherAnalysis, "russian_phonetic_max_length4"));
+        // encode_first with max length 8 is the default russian_phonetic filter
+        assertEquals(4, plugin.getRegistry().getEncoders().size());
+    }
+
+    public void testRussianPhoneticStemmersArePooled() throws IOException {
+        TokenFilterFactory filterFactory = analysis.tokenFilter.get("russian_phonetic_max_length14_with_stemmer");
+        StemmerPool stemmerPool = plugin.getRegistry().getStemmerPool();
+        long created = stemmerPool.getCreated();
+
+        // streams release their stemmers on close, so sequential streams reuse a single stemmer
+        for (int i = 0; i < 3; i++) {
+            Tokenizer tokenizer = new WhitespaceTokenizer();
+            tokenizer.setReader(new StringReader("мягких булок"));
+            BaseTokenStreamTestCase.assertTokenStreamContents(filterFactory.create(tokenizer), new String[]{"м2хк", "б3л1к"});
+        }
+        assertEquals(created + 1, stemmerPool.getCreated());
+        assertTrue(stemmerPool.getReused() >= 2);
+        assertEquals(1, stemmerPool.getIdle());
+    }
+
+    public void testStemmerPoolFollowsNodeProcessors() {
+        Settings nodeSettings = Settings.builder().put("processors", 3).build();
+        assertEquals(6, new RussianPhoneticAnalysisPlugin(nodeSettings).getRegistry().getStemmerPool().getCapacity());
+    }
+
+    public void testCodeDictionariesAreSharedPerFile() throws IOException {
+        Path dir = createTempDir();
+        Path path = dir.resolve("codes.dict");
+        new CodeDictionaryWriter(getEncoder(analysis, "russian_phonetic_max_length8"))
+                .write(Collections.singletonList("абсурд"), path);
+
+        PhoneticRegistry registry = new PhoneticRegistry(Settings.EMPTY);
+        CodeDictionary dictionary = registry.getDictionary(path);
+        assertSame(dictionary, registry.getDictionary(dir.resolve("../" + dir.getFileName() + "/./codes.dict")));
+
+        // replaced file is mapped anew and node caches of its former codes are dropped
+        String cacheKey = PhoneticRegistry.encoderKey(VowelsMode.ENCODE_FIRST, 8) + PhoneticRegistry.dictionaryKey(path);
+        PhoneticCodeCache cache = registry.getCache(cacheKey, 16, TermCache.Eviction.LRU);
+        Path replacement = dir.resolve("codes.dict.new");
+        new CodeDictionaryWriter(getEncoder(analysis, "russian_phonetic_max_length8"))
+                .write(Arrays.asList("абсурд", "булка"), replacement);
+        Files.move(replacement, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        CodeDictionary replaced = registry.getDictionary(path);
+        assertNotSame(dictionary, replaced);
+        assertSame(replaced, registry.getDictionary(path));
+        assertEquals(2, replaced.size());
+        assertNotSame(cache, registry.getCache(cacheKey, 16, TermCache.Eviction.LRU));
+
+        // former mapping stays with the filters using it, closing the registry releases the current ones
+        char[] word = "абсурд".toCharArray();
+        registry.close();
+        String code = getEncoder(analysis, "russian_phonetic_max_length8").encode("абсурд");
+        assertEquals(code.length(), dictionary.lookup(word, 0, word.length, new char[8], 0));
+        expectThrows(IllegalStateException.class, () -> replaced.lookup(word, 0, word.length, new char[8], 0));
+    }
+
+    public void testCacheStatsAreLoggedPeriodically() throws Exception {
+        assertEquals(TimeValue.timeValueMinutes(1), RussianPhoneticAnalysisPlugin.CACHE_STATS_INTERVAL.get(Settings.EMPTY));
+
+        Settings nodeSettings = Settings.builder().put("russian_phonetic.cache_stats_interval", "10ms").build();
+        RussianPhoneticAnalysisPlugin nodePlugin = new RussianPhoneticAnalysisPlugin(nodeSettings);
+        nodePlugin.getRegistry().getCache("vowels=ENCODE_FIRST,max_code_len=8", 16, TermCache.Eviction.LRU);
+        nodePlugin.getRegistry().getStemCache(16, TermCache.Eviction.LRU);
+        TestAnalysis nodeAnalysis = createTestAnalysis("test", nodePlugin);
+
+        Logger logger = LogManager.getLogger(PhoneticRegistry.class);
+        MockLogAppender appender = new MockLogAppender();
+        appender.addExpectation(new MockLogAppender.SeenEventExpectation("node cache", logger.getName(), Level.DEBUG,
+                "node cache [vowels=ENCODE_FIRST,max_code_len=8,cache_size=16,cache_eviction=LRU]: PhoneticCodeCache{*"));
+        appender.addExpectation(new MockLogAppender.SeenEventExpectation("node stem cache", logger.getName(), Level.DEBUG,
+                "node stem cache [stem_cache_size=16,cache_eviction=LRU]: StemLengthCache{*"));
+        appender.addExpectation(new MockLogAppender.SeenEventExpectation("filter cache", logger.getName(), Level.DEBUG,
+                "filter cache [test][russian_phonetic_max_length8_with_cache]: PhoneticCodeCache{*"));
+        appender.addExpectation(new MockLogAppender.SeenEventExpectation("filter stem cache", logger.getName(), Level.DEBUG,
+                "filter cache [test][russian_phonetic_max_length14_with_stemmer_and_stem_cache]: StemLengthCache{*"));
+        appender.start();
+        Loggers.addAppender(logger, appender);
+        Level level = logger.getLevel();
+        Loggers.setLevel(logger, Level.DEBUG);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            nodePlugin.createComponents(null, null, threadPool, null, null, null, null, null, null);
+            assertBusy(appender::assertAllExpectationsMatched);
+            // filter scope caches are held weakly, so the filter is kept reachable till the stats are logged
+            assertNotNull(nodeAnalysis.tokenFilter.get("russian_phonetic_max_length8_with_cache"));
+            assertNotNull(nodeAnalysis.tokenFilter.get("russian_phonetic_max_length14_with_stemmer_and_stem_cache"));
+        } finally {
+            nodePlugin.close();
+            terminate(threadPool);
+            Loggers.setLevel(logger, level);
+            Loggers.removeAppender(logger, appender);
+            appender.stop();
+        }
+    }
+
+    private static PhoneticEncoder getEncoder(TestAnalysis analysis, String filterName) {
+        return ((RussianPhoneticTokenFilterFactory) analysis.tokenFilter.get(filterName)).getEncoder();
+    }
+
+    private static String packed(String code) {
+        char[] packed = new char[PackedCodes.charsLength(code.length())];
+        return new String(packed, 0, PackedCodes.packChars(code.toCharArray(), 0, code.length(), packed, 0));
+    }
+
+    private static void putCode(PhoneticCodeCache cache, String term, String code) {
+        cache.put(term.toCharArray(), term.length(), code.toCharArray(), code.length());
+    }
+
+    private static String getCode(PhoneticCodeCache cache, String term) {
+        char[] code = cache.get(term.toCharArray(), term.length());
+        return code != null ? new String(code) : null;
+    }
 }